@@ -0,0 +1,101 @@
+package com.codelanx.aether.common.bot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.UnaryOperator;
+
+/**
+ * Compares the scheduler backends on the shape of work a tree walk produces:
+ * a burst of short suppliers (state evaluations, cache loads) that the bot
+ * thread then waits on together
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SchedulerBackendBenchmark {
+
+    @Param({"POOL", "WORK_STEALING", "VIRTUAL"})
+    public SchedulerBackend backend;
+
+    //concurrent suppliers per burst
+    @Param({"4", "32"})
+    public int burst;
+
+    //cpu-bound work per supplier, in blackhole tokens
+    @Param({"100", "10000"})
+    public int work;
+
+    //simulated time spent blocked on the game client per supplier
+    @Param({"0", "200"})
+    public long blockedMicros;
+
+    private ScheduledExecutorService service;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (this.backend) {
+            case WORK_STEALING:
+                this.service = new SplitScheduledExecutor(new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+                        ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true), SchedulerBackendBenchmark.newTimer());
+                break;
+            case VIRTUAL:
+                ExecutorService virtual = SchedulerBackend.newVirtualThreadExecutor(UnaryOperator.identity());
+                if (virtual == null) {
+                    throw new IllegalStateException("Virtual threads are unavailable on this runtime");
+                }
+                this.service = new SplitScheduledExecutor(virtual, SchedulerBackendBenchmark.newTimer());
+                break;
+            default:
+                ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(2);
+                pool.setRemoveOnCancelPolicy(true);
+                this.service = pool;
+                break;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.service.shutdownNow();
+    }
+
+    private static ScheduledThreadPoolExecutor newTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1);
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    @Benchmark
+    public void burst(Blackhole hole) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[this.burst];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = CompletableFuture.supplyAsync(this::evaluate, this.service);
+        }
+        CompletableFuture.allOf(futures).join();
+        hole.consume(futures);
+    }
+
+    private Boolean evaluate() {
+        if (this.blockedMicros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(this.blockedMicros));
+        }
+        Blackhole.consumeCPU(this.work);
+        return Boolean.TRUE;
+    }
+}
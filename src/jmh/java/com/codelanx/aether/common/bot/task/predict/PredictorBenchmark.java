@@ -0,0 +1,80 @@
+package com.codelanx.aether.common.bot.task.predict;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of feeding the predictors a state stream, as the tree walk does
+ * once per evaluation. Run with {@code -prof gc} for allocation rates
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PredictorBenchmark {
+
+    @Param({"corpus", "periodic-3", "periodic-12", "noisy-12", "periodic-40"})
+    public String stream;
+
+    private Object[] states;
+    private int next;
+    private BranchPredictor<Object> branch;
+    private LinkedHashTree<Object> tree;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.states = StateStreams.of(this.stream);
+        this.branch = new BranchPredictor<>();
+        this.tree = new LinkedHashTree<>();
+        //warmed over the whole stream, so predict() has something to work from
+        for (Object state : this.states) {
+            this.branch.observeState(state);
+            this.tree.observeState(state);
+        }
+    }
+
+    private Object nextState() {
+        Object back = this.states[this.next];
+        this.next = this.next + 1 == this.states.length ? 0 : this.next + 1;
+        return back;
+    }
+
+    @Benchmark
+    public void branchObserve() {
+        this.branch.observeState(this.nextState());
+    }
+
+    @Benchmark
+    public Object branchPredict() {
+        return this.branch.predict();
+    }
+
+    //what the walk does per evaluation: observe, then ask for the next branch and how sure it is
+    @Benchmark
+    public void branchObserveAndPredict(Blackhole hole) {
+        this.branch.observeState(this.nextState());
+        hole.consume(this.branch.predict());
+        hole.consume(this.branch.getConfidence());
+    }
+
+    @Benchmark
+    public void treeObserve() {
+        this.tree.observeState(this.nextState());
+    }
+
+    @Benchmark
+    public void treeObserveAndPredict(Blackhole hole) {
+        this.tree.observeState(this.nextState());
+        hole.consume(this.tree.predict());
+        hole.consume(this.tree.getConfidence());
+    }
+}
@@ -0,0 +1,65 @@
+package com.codelanx.aether.common.bot.task.predict;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic task state streams for the predictor benchmarks, the way a task
+ * in a skilling loop sees its states: mostly periodic, now and then not
+ */
+final class StateStreams {
+
+    //the hand-written cases the predictor was first tuned against
+    static final List<String> TEST_STRINGS = Arrays.asList("aaabaaabaaabaaab", "abcdcbabcdcbabcdcbabcdcbabcdcbabcdcb", "abbcabbcabbc", "aaabaaababbcabbcabbca", "aaabaaabcbcabbcabbcabbca");
+    private static final int LENGTH = 1 << 16;
+
+    private StateStreams() {
+    }
+
+    /**
+     * Builds a stream by name: "corpus" is {@link #TEST_STRINGS} one after
+     * another, "periodic-P" a random loop of period P repeated, and
+     * "noisy-P" the same loop with 1 in 20 states swapped for a random one
+     *
+     * @param name The stream to build
+     * @return The states of the stream
+     */
+    static Object[] of(String name) {
+        if (name.equals("corpus")) {
+            return StateStreams.corpus();
+        }
+        int dash = name.indexOf('-');
+        int period = Integer.parseInt(name.substring(dash + 1));
+        switch (name.substring(0, dash)) {
+            case "periodic":
+                return StateStreams.periodic(period, 0);
+            case "noisy":
+                return StateStreams.periodic(period, 20);
+            default:
+                throw new IllegalArgumentException("Unknown state stream: " + name);
+        }
+    }
+
+    private static Object[] corpus() {
+        return TEST_STRINGS.stream().flatMapToInt(String::chars).mapToObj(c -> (char) c).toArray();
+    }
+
+    //a loop of `period` states drawn from a few more than that, with one in `noise` states random, 0 for none
+    private static Object[] periodic(int period, int noise) {
+        Random random = new Random(period * 31L + noise);
+        String[] alphabet = new String[period + 4];
+        for (int i = 0; i < alphabet.length; i++) {
+            alphabet[i] = "state" + i;
+        }
+        String[] loop = new String[period];
+        for (int i = 0; i < period; i++) {
+            loop[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+        Object[] back = new Object[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            back[i] = noise > 0 && random.nextInt(noise) == 0 ? alphabet[random.nextInt(alphabet.length)] : loop[i % period];
+        }
+        return back;
+    }
+}
@@ -1,11 +1,40 @@
 package com.codelanx.aether.common;
 
+import com.codelanx.aether.common.bot.SchedulerBackend;
 import com.codelanx.commons.config.MemoryConfig;
 
 import java.util.concurrent.atomic.AtomicReference;
 
 public enum BotConfig implements MemoryConfig<Object> {
     USES_BANK_PLACEHOLDER(false),
+    //when enabled, the brain only ticks when something it waits on completes, plus a slow safety tick
+    EVENT_DRIVEN_TICK(false),
+    SAFETY_TICK_MS(500L),
+    //VIRTUAL falls back to POOL unless runemate recognizes the bot from a virtual thread, see SchedulerBackend
+    SCHEDULER_BACKEND(SchedulerBackend.POOL),
+    //ticks longer than this are logged along with what each neuron spent, 0 to disable
+    TICK_BUDGET_MS(40L),
+    //how often the brain logs (and resets) its neuron timings, 0 to disable
+    METRICS_SUMMARY_MS(60000L),
+    //evaluates thread-safe neurons on the worker pool at the start of each tick, rather than one by one
+    PARALLEL_NEURON_EVALUATION(false),
+    //how many levels below an unresolved task the logic tree starts evaluating ahead of time, 0 to disable
+    SPECULATION_DEPTH(2),
+    //walks the predicted branches to the next leaf while a task executes, and once its invalidator matches
+    //runs that leaf as soon as its parent agrees, rather than walking the tree again
+    PIPELINED_WALK(false),
+    //how often per-task timings are appended to the bot's traces folder, 0 to disable
+    TASK_TRACE_EXPORT_MS(0L),
+    //task states measured to run under this are evaluated inline on the bot thread, 0 to always use the pool
+    INLINE_STATE_NANOS(1000L),
+    //predicts task states from variable-length histories rather than repeating periods
+    CONTEXT_PREDICTION(false),
+    //how sure a task's predictor must be of its next branch before that branch's cache reads are warmed, over 1 to disable
+    PREFETCH_CONFIDENCE(0.75D),
+    //runs a sequence of tree walks repeated this many times as a macro, checking only cheap states, 0 to disable
+    HOT_TRACE_REPEATS(0),
+    //reloads cache entries in the background as they near expiry, rather than on the reading thread once expired
+    CACHE_REFRESH_AHEAD(false),
     ;
 
     private final AtomicReference<Object> value = new AtomicReference<>();
@@ -1,18 +1,80 @@
 package com.codelanx.aether.common.bot;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the {@link AsyncBot} the current thread is working for. Threads
+ * owned by a bot's {@link AetherScheduler} are bound to it directly, anything
+ * else is matched by the thread group runemate started the bot within
+ */
 public class Aether {
 
-    private static AsyncBot instance;
+    private static final ThreadLocal<AsyncBot> BOUND = new InheritableThreadLocal<>();
+    private static final Map<ThreadGroup, AsyncBot> BY_GROUP = new ConcurrentHashMap<>();
 
     public static AetherScheduler getScheduler() {
         return Aether.getBot().getScheduler();
     }
 
     public static AsyncBot getBot() {
-        return instance;
+        AsyncBot bot = BOUND.get();
+        if (bot != null) {
+            return bot;
+        }
+        for (ThreadGroup group = Thread.currentThread().getThreadGroup(); group != null; group = group.getParent()) {
+            bot = BY_GROUP.get(group);
+            if (bot != null) {
+                return bot;
+            }
+        }
+        //with a single bot running there's nothing to disambiguate
+        if (BY_GROUP.size() == 1) {
+            return BY_GROUP.values().iterator().next();
+        }
+        return null;
+    }
+
+    /**
+     * Wraps a task so that it runs as the current thread's bot, for handing
+     * work to threads the bot doesn't own (e.g. runemate or the common pool)
+     *
+     * @param task The task to propagate the current bot to
+     * @return The wrapped task
+     */
+    public static Runnable propagate(Runnable task) {
+        AsyncBot bot = Aether.getBot();
+        if (bot == null) {
+            return task;
+        }
+        return () -> {
+            AsyncBot old = BOUND.get();
+            BOUND.set(bot);
+            try {
+                task.run();
+            } finally {
+                if (old == null) {
+                    BOUND.remove();
+                } else {
+                    BOUND.set(old);
+                }
+            }
+        };
+    }
+
+    static void bind(AsyncBot bot) {
+        BOUND.set(bot);
+    }
+
+    static void register(AsyncBot bot) {
+        BOUND.set(bot);
+        BY_GROUP.put(Thread.currentThread().getThreadGroup(), bot);
     }
 
-    static void setBot(AsyncBot instance) {
-        Aether.instance = instance;
+    static void unregister(AsyncBot bot) {
+        BY_GROUP.values().remove(bot);
+        if (BOUND.get() == bot) {
+            BOUND.remove();
+        }
     }
 }
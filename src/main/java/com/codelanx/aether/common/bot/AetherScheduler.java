@@ -1,18 +1,31 @@
 package com.codelanx.aether.common.bot;
 
+import com.codelanx.aether.common.BotConfig;
+import com.codelanx.aether.common.event.EventPriority;
+import com.codelanx.aether.common.event.HandlerList;
+import com.codelanx.aether.common.event.Listener;
+import com.codelanx.aether.common.event.RegisteredListener;
 import com.codelanx.commons.logging.Logging;
 import com.codelanx.commons.util.Readable;
-import com.codelanx.commons.util.Scheduler;
+import com.runemate.game.api.hybrid.Environment;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 
@@ -22,91 +35,126 @@ public class AetherScheduler {
     private static final AtomicInteger SCHEDULER_INDEX = new AtomicInteger();
     private static final AtomicInteger BOT_INDEX = new AtomicInteger();
     private final ScheduledThreadPoolExecutor botThread;
+    private final ScheduledExecutorService service;
+    private final Set<ScheduledFuture<?>> repeating = ConcurrentHashMap.newKeySet();
+    private final AtomicLong taskCount = new AtomicLong();
     private final ThreadGroup ourGroup;
     private final AsyncBot bot;
+    private final AtomicBoolean wakePending = new AtomicBoolean();
+    private final Listener wakeListener = new Listener();
+    private volatile boolean eventDriven;
     private ScheduledFuture<?> runningBotThread;
 
     AetherScheduler(AsyncBot bot) {
         this.bot = bot;
         this.ourGroup = Thread.currentThread().getThreadGroup();
-        this.botThread = new ScheduledThreadPoolExecutor(1, this::newBotThread, (reject, scheduler) -> {
-            Logging.warning("Bot task rejected for " + this.getClass().getSimpleName() + ", retrying..." );
+        this.botThread = new ScheduledThreadPoolExecutor(1, this::newBotThread, this.newRejectionHandler("Bot"));
+        this.service = this.newService();
+    }
+
+    private ScheduledExecutorService newService() {
+        SchedulerBackend backend = (SchedulerBackend) BotConfig.SCHEDULER_BACKEND.getValue();
+        Logging.info("Using " + backend.name() + " scheduler backend");
+        switch (backend) {
+            case WORK_STEALING:
+                ForkJoinPool workStealer = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+                        this::newWorkerThread, this::onUncaughtException, true);
+                return new SplitScheduledExecutor(workStealer, this.newTimer());
+            case VIRTUAL:
+                ExecutorService virtual = SchedulerBackend.newVirtualThreadExecutor(this::bound);
+                if (virtual == null) {
+                    Logging.warning("Virtual threads are not supported by this runtime, falling back to " + SchedulerBackend.POOL.name());
+                } else if (this.isRecognizedBy(virtual)) {
+                    return new SplitScheduledExecutor(virtual, this.newTimer());
+                } else {
+                    virtual.shutdown();
+                    Logging.warning("Runemate doesn't recognize the bot from virtual threads, falling back to " + SchedulerBackend.POOL.name());
+                }
+                //fall through
+            case POOL:
+            default:
+                ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(2, this::newSchedulerThread, this.newRejectionHandler("Scheduler"));
+                pool.setRemoveOnCancelPolicy(true);
+                return pool;
+        }
+    }
+
+    //virtual threads can't join the bot's thread group, so runemate is asked once whether it still finds the bot from one
+    private boolean isRecognizedBy(ExecutorService executor) {
+        try {
+            return executor.submit(Environment::getBot).get(1, TimeUnit.SECONDS) == this.bot;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            Logging.warning("Error calling runemate from a virtual thread: " + e);
+            return false;
+        }
+    }
+
+    private ScheduledThreadPoolExecutor newTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, this::newTimerThread, this.newRejectionHandler("Timer"));
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private RejectedExecutionHandler newRejectionHandler(String name) {
+        return (reject, scheduler) -> {
+            Logging.warning(name + " task rejected for " + this.getClass().getSimpleName() + ", retrying..." );
             try {
                 reject.run();
             } catch (Throwable t) {
                 Logging.severe("Unhandled exception in " + this.getClass().getSimpleName() + ": " );
                 Logging.severe(Readable.stackTraceToString(t));
-                AetherScheduler.this.bot.stop();
-                return;
+                this.bot.stop();
             }
-        });
-        Scheduler.setProvider(() -> {
-            //TODO: Finish implementing
-            /*ForkJoinPool workStealer = new ForkJoinPool(Runtime.getRuntime().availableProcessors() + 1,
-                            pool -> new SpeshulThread(pool, AetherScheduler.this.ourGroup),
-                            new UncaughtExceptionHandler() {
-                                @Override
-                                public void uncaughtException(Thread t, Throwable e) {
-                                    Logging.info("Unhandled exception in worker thread " + t.getName() + ": " );
-                                    Logging.info(Reflections.stackTraceToString(e));
-                                    AetherScheduler.this.bot.stop();
-                                }
-                            }, true);
-            CompletableFuture<?> comp = CompletableFuture.runAsync(() -> {}, workStealer);*/
-            ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(2, this::newSchedulerThread, (reject, scheduler) -> {
-                Logging.warning("Scheduler task rejected for " + this.getClass().getSimpleName() + ", retrying..." );
-                try {
-                    reject.run();
-                } catch (Throwable t) {
-                    Logging.severe("Unhandled exception in " + this.getClass().getSimpleName() + ": " );
-                    Logging.severe(Readable.stackTraceToString(t));
-                    this.bot.stop();
-                    return;
-                }
-            });
-            pool.setRemoveOnCancelPolicy(true);
-            return pool;
-        });
+        };
+    }
+
+    private void onUncaughtException(Thread t, Throwable e) {
+        Logging.severe("Unhandled exception in worker thread " + t.getName() + ": ");
+        Logging.severe(Readable.stackTraceToString(e));
+        //stop from the bot thread, the worker that failed may be one we're about to shut down
+        if (!this.botThread.isShutdown()) {
+            this.botThread.execute(this.bot::stop);
+        }
+    }
+
+    //threads take the group of the thread creating them, and runemate will only
+    //recognize our threads if they're within the bot's group. Work stealing pools
+    //create workers from whichever thread submits work, so we hop onto one of ours
+    private ForkJoinWorkerThread newWorkerThread(ForkJoinPool pool) {
+        if (this.ourGroup.parentOf(Thread.currentThread().getThreadGroup())) {
+            return new SpeshulThread(pool, this.bot);
+        }
+        FutureTask<ForkJoinWorkerThread> spawn = new FutureTask<>(() -> new SpeshulThread(pool, this.bot));
+        new Thread(this.ourGroup, spawn, "Aether-spawner-" + this.bot.getClass().getName()).start();
+        try {
+            return spawn.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null; //the pool treats null as a rejected thread creation
+        } catch (ExecutionException e) {
+            Logging.log(Level.SEVERE, "Failed to create worker thread within the bot's thread group", e);
+            return null;
+        }
     }
 
     private static class SpeshulThread extends ForkJoinWorkerThread {
 
-        private static final Field setGroup = ((Supplier<Field>) (() -> {
-            try {
-                Field f = Thread.class.getDeclaredField("group");
-                f.setAccessible(true);
-                return f;
-            } catch (NoSuchFieldException e) {
-                e.printStackTrace();
-                throw new RuntimeException("Failed to reflect thread internals for fork-join pool", e);
-            }
-        })).get();
-        private static final Method reserveThreadToGroup = ((Supplier<Method>) (() -> {
-            try {
-                Method m = ThreadGroup.class.getDeclaredMethod("addUnstarted");
-                m.setAccessible(true);
-                return m;
-            } catch (NoSuchMethodException e) {
-                e.printStackTrace();
-                throw new RuntimeException("Failed to reflect thread internals for fork-join pool", e);
-            }
-        })).get();
         private static final AtomicInteger workIndex = new AtomicInteger();
+        private final AsyncBot bot;
 
-
-        public SpeshulThread(ForkJoinPool pool, ThreadGroup group) {
+        public SpeshulThread(ForkJoinPool pool, AsyncBot bot) {
             super(pool);
-            //A RACE
-            //we need to reflect the threadgroup in the superclass before our constructor finishes
-            try {
-                setGroup.set(this, group);
-                reserveThreadToGroup.invoke(group);
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                Logging.log(Level.SEVERE, "Failed to register our task to the correct botgroup, runemate gun b mad", e);
-                Aether.getScheduler().getBotThread().execute(Aether.getBot()::stop);
-                return;
-            }
-            this.setName("aether-work-pool-" + SpeshulThread.workIndex.getAndIncrement());
+            this.bot = bot;
+            this.setName("Aether-work-pool-" + SpeshulThread.workIndex.getAndIncrement());
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            Aether.bind(this.bot);
         }
     }
 
@@ -114,7 +162,142 @@ public class AetherScheduler {
         if (this.runningBotThread != null) {
             throw new IllegalStateException("Already registered bot to scheduler");
         }
-        this.runningBotThread = this.botThread.scheduleAtFixedRate(bot::loop, 500, TICK_RATE_MS, TimeUnit.MILLISECONDS);
+        if (BotConfig.EVENT_DRIVEN_TICK.as(boolean.class)) {
+            //the safety tick only catches state we aren't told about, everything else wakes us directly
+            long safety = BotConfig.SAFETY_TICK_MS.as(long.class);
+            this.eventDriven = true;
+            this.runningBotThread = this.botThread.scheduleWithFixedDelay(this::tick, 500, safety, TimeUnit.MILLISECONDS);
+        } else {
+            this.runningBotThread = this.botThread.scheduleAtFixedRate(bot::loop, 500, TICK_RATE_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void tick() {
+        //cleared before the loop, so a wake during this tick schedules another one afterwards
+        this.wakePending.set(false);
+        if (!this.eventDriven) {
+            //woken just before a pause or stop
+            return;
+        }
+        this.bot.loop();
+    }
+
+    /**
+     * Requests a bot tick as soon as the bot thread is free. Multiple wakes
+     * before the tick runs are coalesced into a single tick. Does nothing
+     * unless the scheduler is in event-driven mode
+     */
+    public void wake() {
+        if (!this.eventDriven || this.botThread.isShutdown()) {
+            return;
+        }
+        if (this.wakePending.compareAndSet(false, true)) {
+            this.botThread.execute(this::tick);
+        }
+    }
+
+    /**
+     * Wakes the bot once the supplied future completes, successfully or not
+     *
+     * @param future The future the brain is waiting on
+     * @param <T> The future's result type
+     * @return The same future, for chaining
+     */
+    public <T> CompletableFuture<T> wakeOn(CompletableFuture<T> future) {
+        future.whenComplete((value, ex) -> this.wake());
+        return future;
+    }
+
+    /**
+     * Wakes the bot whenever an event of the supplied handler list is fired
+     *
+     * @param handlers The {@link HandlerList} of the event to wake on
+     */
+    public void wakeOn(HandlerList handlers) {
+        this.wakeOn(handlers, null);
+    }
+
+    /**
+     * Wakes the bot whenever an event of the supplied handler list is fired
+     * for it, after first running the supplied callback
+     *
+     * @param handlers The {@link HandlerList} of the event to wake on
+     * @param onEvent Run on the firing thread before the wake, may be null
+     */
+    public void wakeOn(HandlerList handlers, Runnable onEvent) {
+        handlers.register(new RegisteredListener(this.wakeListener, (listener, event) -> {
+            //handler lists are shared by every bot, so only this bot's (or botless) events wake it
+            if (event.getBot() != null && event.getBot() != this.bot) {
+                return;
+            }
+            if (onEvent != null) {
+                onEvent.run();
+            }
+            this.wake();
+        }, EventPriority.MONITOR, true, new String[0]));
+    }
+
+    /**
+     * Runs the supplier on this bot's thread pool
+     *
+     * @param supplier The work to run
+     * @param <T> The result type
+     * @return A future of the supplier's result
+     */
+    public <T> CompletableFuture<T> complete(Supplier<T> supplier) {
+        this.taskCount.incrementAndGet();
+        return CompletableFuture.supplyAsync(supplier, this.service);
+    }
+
+    /**
+     * Runs the supplier on this bot's thread pool after a delay
+     *
+     * @param supplier The work to run
+     * @param delayMs Milliseconds to wait before running it
+     * @param <T> The result type
+     * @return A future of the supplier's result
+     */
+    public <T> CompletableFuture<T> complete(Supplier<T> supplier, long delayMs) {
+        if (delayMs <= 0) {
+            return this.complete(supplier);
+        }
+        this.taskCount.incrementAndGet();
+        CompletableFuture<T> back = new CompletableFuture<>();
+        this.service.schedule(() -> {
+            if (back.isDone()) {
+                return; //cancelled while waiting
+            }
+            try {
+                back.complete(supplier.get());
+            } catch (Throwable t) {
+                back.completeExceptionally(t);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+        return back;
+    }
+
+    public ScheduledFuture<?> runAsync(Runnable r) {
+        this.taskCount.incrementAndGet();
+        return this.service.schedule(r, 0, TimeUnit.MILLISECONDS);
+    }
+
+    //repeating tasks are cancelled when the bot is paused or stopped
+    public ScheduledFuture<?> runRepeating(Runnable r, long startAfterMs, long periodMs) {
+        this.taskCount.incrementAndGet();
+        ScheduledFuture<?> back = this.service.scheduleAtFixedRate(r, startAfterMs, periodMs, TimeUnit.MILLISECONDS);
+        this.repeating.removeIf(ScheduledFuture::isDone);
+        this.repeating.add(back);
+        return back;
+    }
+
+    //total tasks handed to the pool, for logging
+    public long getTaskCount() {
+        return this.taskCount.get();
+    }
+
+    private void cancelAllTasks() {
+        this.repeating.forEach(f -> f.cancel(true));
+        this.repeating.clear();
     }
 
     void pause() {
@@ -122,8 +305,9 @@ public class AetherScheduler {
         if (this.runningBotThread == null) {
             return;
         }
+        this.eventDriven = false;
         this.runningBotThread.cancel(true);
-        Scheduler.cancelAllTasks();
+        this.cancelAllTasks();
         this.runningBotThread = null;
     }
 
@@ -132,25 +316,51 @@ public class AetherScheduler {
     }
 
     boolean isShutdown() {
-        return this.botThread.isShutdown() || Scheduler.getService().isShutdown();
+        return this.botThread.isShutdown() || this.service.isShutdown();
     }
 
     void stop() {
         //TODO: Thread check, we should probably have this called from the main bot thread
-        Scheduler.cancelAndShutdown();
+        this.eventDriven = false;
+        HandlerList.unregisterAll(this.wakeListener);
+        this.cancelAllTasks();
+        this.service.shutdown();
         this.botThread.shutdown();
     }
 
     private Thread newBotThread(Runnable r) {
-        return new Thread(this.ourGroup, r,"Aether-primary-" + this.bot.getClass().getName() + "-" + BOT_INDEX.getAndIncrement());
+        return new Thread(this.ourGroup, this.bound(r), "Aether-primary-" + this.bot.getClass().getName() + "-" + BOT_INDEX.getAndIncrement());
     }
 
     private Thread newSchedulerThread(Runnable r) {
-        return new Thread(this.ourGroup, r,"Aether-scheduler-" + this.bot.getClass().getName() + "-" + SCHEDULER_INDEX.getAndIncrement());
+        return new Thread(this.ourGroup, this.bound(r), "Aether-scheduler-" + this.bot.getClass().getName() + "-" + SCHEDULER_INDEX.getAndIncrement());
     }
 
-    public ScheduledThreadPoolExecutor getThreadPool() {
-        return (ScheduledThreadPoolExecutor) Scheduler.getService();
+    private Thread newTimerThread(Runnable r) {
+        return new Thread(this.ourGroup, this.bound(r), "Aether-timer-" + this.bot.getClass().getName() + "-" + SCHEDULER_INDEX.getAndIncrement());
+    }
+
+    //every thread we hand out works for our bot, regardless of the thread that spawned it
+    private Runnable bound(Runnable r) {
+        return () -> {
+            Aether.bind(this.bot);
+            r.run();
+        };
+    }
+
+    public ScheduledExecutorService getThreadPool() {
+        return this.service;
+    }
+
+    //an approximation for logging, not a synchronization tool
+    public int getActiveCount() {
+        ScheduledExecutorService service = this.getThreadPool();
+        if (service instanceof ScheduledThreadPoolExecutor) {
+            return ((ScheduledThreadPoolExecutor) service).getActiveCount();
+        } else if (service instanceof SplitScheduledExecutor) {
+            return ((SplitScheduledExecutor) service).getActiveCount();
+        }
+        return -1;
     }
 
     ScheduledThreadPoolExecutor getBotThread() {
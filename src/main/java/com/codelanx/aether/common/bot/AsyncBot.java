@@ -1,11 +1,21 @@
 package com.codelanx.aether.common.bot;
 
+import com.codelanx.aether.common.BotConfig;
 import com.codelanx.aether.common.RunemateLoggerProxy;
 import com.codelanx.aether.common.action.HMagic;
+import com.codelanx.aether.common.bot.metric.TaskTracer;
 import com.codelanx.aether.common.bot.mission.Mission;
 import com.codelanx.aether.common.bot.task.AetherTask;
+import com.codelanx.aether.common.bot.task.DependencyGraph;
+import com.codelanx.aether.common.bot.task.predict.PredictorStore;
+import com.codelanx.aether.common.event.Events;
+import com.codelanx.aether.common.event.type.client.PauseEvent;
+import com.codelanx.aether.common.event.type.client.ResumeEvent;
 import com.codelanx.aether.common.input.UserInput;
-import com.codelanx.aether.common.cache.Caches;
+import com.codelanx.aether.common.cache.GameCache;
+import com.codelanx.aether.common.cache.QueryType;
+import com.codelanx.aether.common.cache.Snapshot;
+import com.codelanx.aether.common.input.UserInput3;
 import com.codelanx.aether.common.rest.RestLoader;
 import com.codelanx.commons.logging.Debugger;
 import com.codelanx.commons.logging.Logging;
@@ -18,8 +28,11 @@ import java.io.File;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
 public abstract class AsyncBot extends AbstractBot {
@@ -29,9 +42,24 @@ public abstract class AsyncBot extends AbstractBot {
     private final AtomicBoolean stopping = new AtomicBoolean();
     private RestLoader data;
     private final List<Runnable> preExistingTasks = new LinkedList<>();
+    //everything below is per bot, so several bots may share one client
+    private final Map<QueryType, GameCache<?, ?>> caches = new ConcurrentHashMap<>();
+    private final UserInput input = new UserInput();
+    private final UserInput3 input3 = new UserInput3();
+    private final DependencyGraph dependencies = new DependencyGraph(() -> {
+        if (this.scheduler != null) {
+            this.scheduler.wake();
+        }
+    });
+    private final Snapshot snapshot = new Snapshot(this.dependencies);
+    private final TaskTracer tracer = new TaskTracer();
+    private final Map<Invalidator, AetherTask<?>> invalidatorTasks = new ConcurrentHashMap<>();
+    private final AetherTask<?> nothing = AetherTask.of(() -> {});
+    private PredictorStore predictors;
+    private Logger logger;
 
     public AsyncBot() {
-        Aether.setBot(this);
+        Aether.register(this);
     }
 
     public AsyncBot(TreeBot old) {
@@ -51,7 +79,7 @@ public abstract class AsyncBot extends AbstractBot {
                 this.scheduler.stop();
             }
             if (!this.isPaused()) {
-                Logging.fine("Lazily observed thread pool count: " + this.scheduler.getThreadPool().getActiveCount());
+                Logging.fine("Lazily observed thread pool count: " + this.scheduler.getActiveCount());
             }
             try {
                 Thread.sleep(200);
@@ -85,10 +113,25 @@ public abstract class AsyncBot extends AbstractBot {
         {
             //THIS IS ACTUALLY CONSTRUCTOR MATERIAL
             //but we can't modify loggers in constructors
-            Logger l = new RunemateLoggerProxy(this.getLogger());
-            Logging.setNab(() -> l);
-            Debugger.DebugUtil.getOpts().setLogger(l);
+            Aether.bind(this);
+            this.logger = new RunemateLoggerProxy(this.getLogger());
+            Logger l = this.logger;
+            //logging is global, so route each message to the logger of the bot it came from
+            Logging.setNab(() -> {
+                AsyncBot bot = Aether.getBot();
+                return bot == null || bot.logger == null ? l : bot.logger;
+            });
+            //the debugger holds a single logger too, so it's given one which routes the same way
+            Debugger.DebugUtil.getOpts().setLogger(new Logger(l.getName(), null) {
+                @Override
+                public void log(LogRecord record) {
+                    AsyncBot bot = Aether.getBot();
+                    (bot == null || bot.logger == null ? l : bot.logger).log(record);
+                }
+            });
             this.scheduler = new AetherScheduler(this);
+            this.predictors = new PredictorStore(new File(this.getResourcePath(), "predict"), this.getClass());
+            this.predictors.load();
             this.data = new RestLoader(this);
             this.data.loadLocal();
             this.brain = new Brain(this);
@@ -101,18 +144,23 @@ public abstract class AsyncBot extends AbstractBot {
         this.preExistingTasks.forEach(Runnable::run);
         this.onBotStart(strings);
         this.scheduler.register(this);
+        this.exportTraces();
     }
 
     @Override
     public final void onStop() {
+        Aether.bind(this);
         Logging.info("#onStop");
         this.stopping.set(true);
         this.onBotStop();
         this.scheduler.stop();
         this.brain.getLogicTree().clear();
+        this.predictors.save();
         UserInput.wipe();
-        Caches.invalidateAll();
+        this.invalidateCaches();
+        this.dependencies.clear();
         super.onStop();
+        Aether.unregister(this);
     }
 
     //instead of being empty, we leave them as abstract to discourage autofillers from placing a supercall
@@ -127,19 +175,29 @@ public abstract class AsyncBot extends AbstractBot {
 
     @Override
     public final void onPause() {
+        Aether.bind(this);
         super.onPause();
         this.scheduler.pause();
         this.brain.getLogicTree().invalidate();
         UserInput.wipe();
-        Caches.invalidateAll();
+        this.invalidateCaches();
         this.onBotPause();
+        Events.fire(new PauseEvent());
     }
 
     @Override
     public final void onResume() {
+        Aether.bind(this);
         super.onResume();
         this.onBotResume();
         this.scheduler.resume(this);
+        this.exportTraces();
+        Events.fire(new ResumeEvent());
+    }
+
+    //repeating tasks are cancelled on pause, so this is restarted on resume
+    private void exportTraces() {
+        this.tracer.scheduleExport(this.scheduler, new File(this.getResourcePath(), "traces"), BotConfig.TASK_TRACE_EXPORT_MS.as(long.class));
     }
 
     public File getResourcePath() {
@@ -149,4 +207,45 @@ public abstract class AsyncBot extends AbstractBot {
     public AetherScheduler getScheduler() {
         return this.scheduler;
     }
+
+    public GameCache<?, ?> getCache(QueryType type) {
+        return this.caches.computeIfAbsent(type, QueryType::newCache);
+    }
+
+    private void invalidateCaches() {
+        this.caches.values().forEach(GameCache::invalidateAll);
+    }
+
+    public DependencyGraph getDependencies() {
+        return this.dependencies;
+    }
+
+    //null until the bot starts
+    public PredictorStore getPredictors() {
+        return this.predictors;
+    }
+
+    public TaskTracer getTracer() {
+        return this.tracer;
+    }
+
+    public AetherTask<?> getInvalidatorTask(Invalidator invalidator) {
+        return this.invalidatorTasks.computeIfAbsent(invalidator, i -> AetherTask.<Object>of(() -> i));
+    }
+
+    public AetherTask<?> getNothingTask() {
+        return this.nothing;
+    }
+
+    public Snapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    public UserInput getUserInput() {
+        return this.input;
+    }
+
+    public UserInput3 getUserInput3() {
+        return this.input3;
+    }
 }
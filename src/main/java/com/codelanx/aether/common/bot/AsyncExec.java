@@ -1,7 +1,6 @@
 package com.codelanx.aether.common.bot;
 
 import com.codelanx.commons.util.RNG;
-import com.codelanx.commons.util.Scheduler;
 import com.codelanx.commons.util.ref.Box;
 
 import java.util.concurrent.CompletableFuture;
@@ -33,7 +32,8 @@ public class AsyncExec {
         CompletableFuture<Invalidator> compl = new CompletableFuture<>();
         Box<ScheduledFuture<?>> box = new Box<>();
         AtomicLong start = new AtomicLong(System.currentTimeMillis());
-        box.value = Scheduler.runAsyncTaskRepeat(() -> {
+        AsyncBot bot = Aether.getBot();
+        box.value = bot.getScheduler().runRepeating(() -> {
             boolean cancelled = compl.isCancelled();
             if (cancelled) {
                 box.value.cancel(true);
@@ -48,7 +48,7 @@ public class AsyncExec {
                 box.value.cancel(true);
             }
         }, 0, 50);
-        Aether.getBot().getBrain().getLogicTree().delayUntil(compl);
+        bot.getBrain().getLogicTree().delayUntil(compl);
         return compl;
     }
 
@@ -1,5 +1,7 @@
 package com.codelanx.aether.common.bot;
 
+import com.codelanx.aether.common.BotConfig;
+import com.codelanx.aether.common.bot.metric.BrainMetrics;
 import com.codelanx.aether.common.bot.neuron.BotFailureNeuron;
 import com.codelanx.aether.common.bot.neuron.CombatNeuron;
 import com.codelanx.aether.common.bot.neuron.GameEventNeuron;
@@ -8,11 +10,15 @@ import com.codelanx.aether.common.bot.neuron.LootNeuron;
 import com.codelanx.aether.common.bot.neuron.Neuron;
 import com.codelanx.aether.common.bot.neuron.LogicTreeNeuron;
 import com.codelanx.aether.common.bot.neuron.UserInputNeuron;
+import com.codelanx.aether.common.event.HandlerList;
 import com.codelanx.commons.logging.Logging;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 public class Brain {
 
@@ -26,10 +32,20 @@ public class Brain {
             this.primary,
             new LogoutNeuron()
     ));
+    private final BrainMetrics metrics = new BrainMetrics(this.neurons);
+    //earliest time each neuron is due to be evaluated again, and whether an event has made it due early
+    private final long[] nextEvaluationMs = new long[this.neurons.size()];
+    private final AtomicIntegerArray woken = new AtomicIntegerArray(this.neurons.size());
     private final AsyncBot bot;
 
     public Brain(AsyncBot bot) {
         this.bot = bot;
+        for (int i = 0; i < this.neurons.size(); i++) {
+            int index = i;
+            for (HandlerList handlers : this.neurons.get(i).getWakeEvents()) {
+                bot.getScheduler().wakeOn(handlers, () -> this.woken.set(index, 1));
+            }
+        }
     }
 
     public AsyncBot getBot() {
@@ -40,21 +56,60 @@ public class Brain {
         return this.primary;
     }
 
+    public BrainMetrics getMetrics() {
+        return this.metrics;
+    }
+
     void loop() {
+        long start = System.nanoTime();
+        try {
+            this.think();
+        } finally {
+            this.metrics.recordTick(System.nanoTime() - start, BotConfig.TICK_BUDGET_MS.as(long.class), BotConfig.METRICS_SUMMARY_MS.as(long.class));
+        }
+    }
+
+    private void think() {
         //Neuron n = this.neurons.stream().filter(Neuron::applies).findFirst().orElse(null);
         Neuron n = null;
-        for (int i = 0; i < this.neurons.size(); i++) {
-            Neuron nn = this.neurons.get(i);
-            boolean blocked = nn.isBlocking();
-            boolean skipped = nn.isEvaluationSkipped();
-            if (skipped) {
-                if (blocked) {
-                    return;
+        int index = -1;
+        this.bot.getSnapshot().advance();
+        boolean[] due = this.getDueNeurons();
+        boolean deferred = false;
+        //results of this tick's ahead-of-time evaluations, by neuron index
+        CompletableFuture<Evaluation>[] speculative = BotConfig.PARALLEL_NEURON_EVALUATION.as(boolean.class) ? this.speculate(due) : null;
+        try {
+            for (int i = 0; i < this.neurons.size(); i++) {
+                Neuron nn = this.neurons.get(i);
+                boolean blocked = nn.isBlocking();
+                boolean skipped = nn.isEvaluationSkipped();
+                if (skipped) {
+                    if (blocked) {
+                        return;
+                    }
+                } else if (due[i]) {
+                    this.woken.set(i, 0);
+                    Evaluation eval = speculative == null || speculative[i] == null ? Evaluation.of(nn) : Brain.await(speculative[i]);
+                    this.metrics.recordApplies(i, eval.nanos);
+                    this.nextEvaluationMs[i] = System.currentTimeMillis() + nn.getEvaluationIntervalMS();
+                    if (eval.applies) {
+                        n = nn;
+                        index = i;
+                        break;
+                    }
+                } else {
+                    deferred = true;
                 }
-            } else if (nn.applies()) {
-                n = nn;
-                break;
             }
+        } finally {
+            if (speculative != null) {
+                //anything below the neuron we settled on is no longer needed
+                Arrays.stream(speculative).filter(f -> f != null && !f.isDone()).forEach(f -> f.cancel(false));
+            }
+        }
+        if (n == null && deferred) {
+            //a neuron that isn't due yet may still apply
+            return;
         }
         if (n == null) {
             //stop bot
@@ -63,7 +118,67 @@ public class Brain {
             return;
         }
         Logging.info("Firing neuron: " + n.getClass().getSimpleName());
-        n.fire(this);
+        long start = System.nanoTime();
+        try {
+            n.fire(this);
+        } finally {
+            this.metrics.recordFire(index, System.nanoTime() - start);
+        }
+    }
+
+    //a neuron stays due (and its wake pending) until it's actually evaluated
+    private boolean[] getDueNeurons() {
+        long now = System.currentTimeMillis();
+        boolean[] back = new boolean[this.neurons.size()];
+        for (int i = 0; i < back.length; i++) {
+            back[i] = this.woken.get(i) == 1 || now >= this.nextEvaluationMs[i];
+        }
+        return back;
+    }
+
+    //starts evaluating every thread-safe neuron on the worker pool, the rest are left to the bot thread
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Evaluation>[] speculate(boolean[] due) {
+        CompletableFuture<Evaluation>[] back = new CompletableFuture[this.neurons.size()];
+        AetherScheduler scheduler = this.bot.getScheduler();
+        for (int i = 0; i < back.length; i++) {
+            Neuron nn = this.neurons.get(i);
+            if (due[i] && nn.isThreadSafe() && !nn.isEvaluationSkipped()) {
+                back[i] = scheduler.complete(() -> Evaluation.of(nn));
+            }
+        }
+        return back;
+    }
+
+    private static Evaluation await(CompletableFuture<Evaluation> eval) {
+        try {
+            return eval.join();
+        } catch (CompletionException ex) {
+            //rethrow as if #applies had been called on this thread
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            } else if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private static class Evaluation {
+
+        private final boolean applies;
+        private final long nanos;
+
+        private Evaluation(boolean applies, long nanos) {
+            this.applies = applies;
+            this.nanos = nanos;
+        }
+
+        private static Evaluation of(Neuron neuron) {
+            long start = System.nanoTime();
+            boolean applies = neuron.applies();
+            return new Evaluation(applies, System.nanoTime() - start);
+        }
     }
 
 }
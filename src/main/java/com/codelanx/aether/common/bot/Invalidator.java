@@ -36,6 +36,19 @@ public class Invalidator {
         return this.range;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Invalidator)) return false;
+        Invalidator that = (Invalidator) o;
+        return this.all == that.all && this.range == that.range && this.end == that.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Boolean.hashCode(this.all) + this.range) + Boolean.hashCode(this.end);
+    }
+
     @Override
     public String toString() {
         return "Invalidator{" +
@@ -0,0 +1,42 @@
+package com.codelanx.aether.common.bot;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.UnaryOperator;
+
+//selects the thread pool behind each AetherScheduler, chosen once when the bot starts
+public enum SchedulerBackend {
+
+    //a fixed pool of two scheduler threads, the historical default
+    POOL,
+    //a work-stealing fork-join pool sized to the machine, with a timer which hands delayed tasks to it when due
+    WORK_STEALING,
+    //a virtual thread per task for the blocking runemate calls, delayed tasks get their own virtual thread when due
+    //only available on runtimes with virtual threads, otherwise POOL is used instead
+    //
+    //note that virtual threads can't be placed in the bot's thread group, which is how runemate
+    //finds the bot a thread works for. Binding them through Aether doesn't change that, so the
+    //scheduler checks at startup that runemate still recognizes the bot from a virtual thread,
+    //and uses POOL instead if it doesn't
+    VIRTUAL,
+    ;
+
+    //null when the running JVM doesn't support (or hasn't enabled) virtual threads
+    //reflective, as we still compile against java 8
+    static ExecutorService newVirtualThreadExecutor(UnaryOperator<Runnable> decorator) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            ThreadFactory virtual = (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+            ThreadFactory decorated = r -> virtual.newThread(decorator.apply(r));
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, decorated);
+        } catch (NoSuchMethodException | ClassNotFoundException | IllegalAccessException e) {
+            return null;
+        } catch (InvocationTargetException e) {
+            //preview runtimes throw when the preview isn't enabled
+            return null;
+        }
+    }
+
+}
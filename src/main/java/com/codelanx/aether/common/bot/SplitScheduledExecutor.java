@@ -0,0 +1,206 @@
+package com.codelanx.aether.common.bot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ScheduledExecutorService} which splits immediate and timed work
+ *
+ * All work (state evaluations, cache loads, input attempts, polls) runs on the
+ * worker executor, e.g. a work-stealing {@link ForkJoinPool} or a virtual
+ * thread executor. Neither kind of worker has a notion of time, so a small,
+ * separate timer keeps track of delays and periods, and when one is up only
+ * hands the task over to the workers. A long poll therefore never occupies
+ * the timer, and delayed tasks don't queue behind each other
+ */
+public class SplitScheduledExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private final ExecutorService workers;
+    private final ScheduledThreadPoolExecutor timer;
+    //tasks running on workers which can't report it themselves, e.g. virtual threads
+    private final AtomicInteger running;
+
+    public SplitScheduledExecutor(ExecutorService workers, ScheduledThreadPoolExecutor timer) {
+        this.workers = workers;
+        this.timer = timer;
+        this.running = workers instanceof ForkJoinPool ? null : new AtomicInteger();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (this.running == null) {
+            this.workers.execute(command);
+            return;
+        }
+        this.workers.execute(() -> {
+            this.running.incrementAndGet();
+            try {
+                command.run();
+            } finally {
+                this.running.decrementAndGet();
+            }
+        });
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return this.handOff(new HandOff<>(Executors.callable(command)), delay, unit);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return this.handOff(new HandOff<>(callable), delay, unit);
+    }
+
+    //zero delays go straight to the workers, the timer is only for waiting
+    private <V> ScheduledFuture<V> handOff(HandOff<V> task, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            this.execute(task);
+        } else {
+            task.trigger = this.timer.schedule(() -> this.execute(task), delay, unit);
+        }
+        return task;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        Periodic task = new Periodic(command, 0);
+        task.arm(this.timer.scheduleAtFixedRate(task::fire, initialDelay, period, unit));
+        return task;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        Periodic task = new Periodic(command, unit.toNanos(delay));
+        task.arm(this.timer.schedule(task::fire, initialDelay, unit));
+        return task;
+    }
+
+    @Override
+    public void shutdown() {
+        this.timer.shutdown();
+        this.workers.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> back = new ArrayList<>(this.timer.shutdownNow());
+        back.addAll(this.workers.shutdownNow());
+        return back;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return this.workers.isShutdown() && this.timer.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return this.workers.isTerminated() && this.timer.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!this.timer.awaitTermination(timeout, unit)) {
+            return false;
+        }
+        return this.workers.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    //an estimate, same as the underlying pools. Thread-per-task workers aren't counted
+    public int getActiveCount() {
+        int workers = this.running == null ? ((ForkJoinPool) this.workers).getActiveThreadCount() : this.running.get();
+        return workers + this.timer.getActiveCount();
+    }
+
+    public ExecutorService getWorkers() {
+        return this.workers;
+    }
+
+    public ScheduledThreadPoolExecutor getTimer() {
+        return this.timer;
+    }
+
+    //a task run by the workers once the timer's trigger fires, cancelling it cancels both
+    private static class HandOff<V> extends FutureTask<V> implements ScheduledFuture<V> {
+
+        protected volatile ScheduledFuture<?> trigger; //null once handed over without a delay
+
+        public HandOff(Callable<V> callable) {
+            super(callable);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            ScheduledFuture<?> trigger = this.trigger;
+            return trigger == null ? 0 : trigger.getDelay(unit);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(this.getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean back = super.cancel(mayInterruptIfRunning);
+            ScheduledFuture<?> trigger = this.trigger;
+            if (trigger != null) {
+                trigger.cancel(false);
+            }
+            return back;
+        }
+    }
+
+    //a repeating task, handed to the workers each time it's due. A run that's still going when the
+    //next is due skips it, and one that throws stops the task, as with a ScheduledThreadPoolExecutor
+    private class Periodic extends HandOff<Object> {
+
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final long delayNanos; //re-armed after each run with this delay, 0 for a fixed rate
+
+        public Periodic(Runnable command, long delayNanos) {
+            super(Executors.callable(command));
+            this.delayNanos = delayNanos;
+        }
+
+        public void fire() {
+            if (this.isDone() || !this.running.compareAndSet(false, true)) {
+                return;
+            }
+            SplitScheduledExecutor.this.execute(() -> {
+                try {
+                    if (this.runAndReset() && this.delayNanos > 0) {
+                        this.arm(SplitScheduledExecutor.this.timer.schedule(this::fire, this.delayNanos, TimeUnit.NANOSECONDS));
+                    } else if (this.isDone()) {
+                        this.arm(this.trigger);
+                    }
+                } finally {
+                    this.running.set(false);
+                }
+            });
+        }
+
+        //the first run may finish before its trigger is set, so a finished task cancels it here too
+        private void arm(ScheduledFuture<?> trigger) {
+            this.trigger = trigger;
+            if (trigger != null && this.isDone()) {
+                trigger.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.codelanx.aether.common.bot.metric;
+
+import com.codelanx.aether.common.bot.neuron.Neuron;
+import com.codelanx.commons.logging.Logging;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timings of each {@link Neuron#applies()} and {@link Neuron#fire} call made
+ * by the brain, along with the length of each tick as a whole. Recorded on the
+ * bot thread, readable from anywhere
+ */
+public class BrainMetrics {
+
+    private final List<? extends Neuron> neurons;
+    private final LatencyHistogram[] applies;
+    private final LatencyHistogram[] fires;
+    private final LatencyHistogram ticks = new LatencyHistogram();
+    private final AtomicLong overruns = new AtomicLong();
+    //time spent by each neuron during the current tick, to explain overruns
+    private final long[] tickApplies;
+    private final long[] tickFires;
+    private long lastSummaryMs = System.currentTimeMillis();
+
+    public BrainMetrics(List<? extends Neuron> neurons) {
+        this.neurons = neurons;
+        this.applies = new LatencyHistogram[neurons.size()];
+        this.fires = new LatencyHistogram[neurons.size()];
+        for (int i = 0; i < this.applies.length; i++) {
+            this.applies[i] = new LatencyHistogram();
+            this.fires[i] = new LatencyHistogram();
+        }
+        this.tickApplies = new long[neurons.size()];
+        this.tickFires = new long[neurons.size()];
+    }
+
+    // -=- recording, bot thread only
+
+    public void recordApplies(int neuron, long nanos) {
+        this.applies[neuron].record(nanos);
+        this.tickApplies[neuron] += nanos;
+    }
+
+    public void recordFire(int neuron, long nanos) {
+        this.fires[neuron].record(nanos);
+        this.tickFires[neuron] += nanos;
+    }
+
+    public void recordTick(long nanos, long budgetMs, long summaryMs) {
+        this.ticks.record(nanos);
+        if (budgetMs > 0 && nanos > TimeUnit.MILLISECONDS.toNanos(budgetMs)) {
+            this.overruns.incrementAndGet();
+            Logging.warning("Tick overran its budget (" + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms > " + budgetMs + "ms): " + this.describeTick());
+        }
+        for (int i = 0; i < this.tickApplies.length; i++) {
+            this.tickApplies[i] = 0;
+            this.tickFires[i] = 0;
+        }
+        long now = System.currentTimeMillis();
+        if (summaryMs > 0 && now - this.lastSummaryMs >= summaryMs) {
+            this.lastSummaryMs = now;
+            this.logSummary();
+        }
+    }
+
+    private String describeTick() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < this.tickApplies.length; i++) {
+            if (this.tickApplies[i] == 0 && this.tickFires[i] == 0) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(this.getName(i)).append(" applies=").append(TimeUnit.NANOSECONDS.toMicros(this.tickApplies[i])).append("µs");
+            if (this.tickFires[i] > 0) {
+                sb.append(" fire=").append(TimeUnit.NANOSECONDS.toMicros(this.tickFires[i])).append("µs");
+            }
+        }
+        return sb.toString();
+    }
+
+    //logs the window since the last summary, and starts a new one
+    private void logSummary() {
+        Logging.info("Brain timings: ticks{" + this.ticks.snapshotAndReset() + "}, overruns=" + this.overruns.getAndSet(0));
+        for (int i = 0; i < this.applies.length; i++) {
+            LatencyHistogram.Snapshot app = this.applies[i].snapshotAndReset();
+            LatencyHistogram.Snapshot fire = this.fires[i].snapshotAndReset();
+            if (app.getCount() == 0 && fire.getCount() == 0) {
+                continue;
+            }
+            Logging.info("\t" + this.getName(i) + ": applies{" + app + "}" + (fire.getCount() == 0 ? "" : ", fire{" + fire + "}"));
+        }
+    }
+
+    // -=- reading
+
+    public LatencyHistogram.Snapshot getTickLatency() {
+        return this.ticks.snapshot();
+    }
+
+    public LatencyHistogram.Snapshot getAppliesLatency(Class<? extends Neuron> neuron) {
+        return this.applies[this.indexOf(neuron)].snapshot();
+    }
+
+    public LatencyHistogram.Snapshot getFireLatency(Class<? extends Neuron> neuron) {
+        return this.fires[this.indexOf(neuron)].snapshot();
+    }
+
+    //ticks over budget since the last summary
+    public long getOverrunCount() {
+        return this.overruns.get();
+    }
+
+    private int indexOf(Class<? extends Neuron> neuron) {
+        for (int i = 0; i < this.neurons.size(); i++) {
+            if (this.neurons.get(i).getClass() == neuron) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown neuron: " + neuron.getSimpleName());
+    }
+
+    private String getName(int neuron) {
+        return this.neurons.get(neuron).getClass().getSimpleName();
+    }
+}
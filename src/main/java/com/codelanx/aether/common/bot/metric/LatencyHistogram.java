@@ -0,0 +1,125 @@
+package com.codelanx.aether.common.bot.metric;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram with power-of-two nanosecond buckets. Safe to
+ * record and read from any thread, values are only accurate to within a factor
+ * of two, which is plenty to tell a 50µs neuron from a 20ms one
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        this.buckets.incrementAndGet(LatencyHistogram.bucketOf(nanos));
+        this.count.incrementAndGet();
+        this.total.addAndGet(nanos);
+        long old;
+        while ((old = this.max.get()) < nanos && !this.max.compareAndSet(old, nanos));
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.buckets.get(i);
+        }
+        return new Snapshot(counts, this.count.get(), this.total.get(), this.max.get());
+    }
+
+    //returns the window up until now and starts a fresh one
+    public Snapshot snapshotAndReset() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.buckets.getAndSet(i, 0);
+        }
+        return new Snapshot(counts, this.count.getAndSet(0), this.total.getAndSet(0), this.max.getAndSet(0));
+    }
+
+    //bucket i holds values in [2^(i-1), 2^i)
+    private static int bucketOf(long nanos) {
+        return BUCKETS - Long.numberOfLeadingZeros(nanos);
+    }
+
+    public static class Snapshot {
+
+        private final long[] buckets;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        private Snapshot(long[] buckets, long count, long totalNanos, long maxNanos) {
+            this.buckets = buckets;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public long getTotalNanos() {
+            return this.totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return this.maxNanos;
+        }
+
+        public long getMeanNanos() {
+            return this.count == 0 ? 0 : this.totalNanos / this.count;
+        }
+
+        /**
+         * Approximates a percentile of the recorded values, reported as the
+         * upper bound of the bucket it falls within
+         *
+         * @param percentile The percentile, within [0, 1]
+         * @return The approximate value in nanoseconds, or 0 if nothing was recorded
+         */
+        public long getPercentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 1) {
+                throw new IllegalArgumentException("Percentile must be within [0, 1]");
+            }
+            long total = 0;
+            for (long c : this.buckets) {
+                total += c;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < this.buckets.length; i++) {
+                seen += this.buckets[i];
+                if (seen >= target && this.buckets[i] > 0) {
+                    return Math.min(i == 0 ? 0 : (1L << i) - 1, this.maxNanos);
+                }
+            }
+            return this.maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "n=" + this.count
+                    + ", mean=" + Snapshot.micros(this.getMeanNanos())
+                    + ", p50=" + Snapshot.micros(this.getPercentileNanos(0.5))
+                    + ", p99=" + Snapshot.micros(this.getPercentileNanos(0.99))
+                    + ", max=" + Snapshot.micros(this.maxNanos);
+        }
+
+        private static String micros(long nanos) {
+            return TimeUnit.NANOSECONDS.toMicros(nanos) + "µs";
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.codelanx.aether.common.bot.metric;
+
+import com.codelanx.aether.common.bot.AetherScheduler;
+import com.codelanx.aether.common.bot.Invalidator;
+import com.codelanx.aether.common.bot.task.AetherTask;
+import com.codelanx.commons.logging.Logging;
+import com.codelanx.commons.util.Readable;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-task timings, keyed by {@link AetherTask#getToken()}: how long each
+ * task's state took from being requested to resolving, how long its execution
+ * took, which child the tree walk picked from it, and which invalidators it
+ * returned. Recorded from any thread, and optionally exported periodically as
+ * JSON lines (one line per task per window)
+ */
+public class TaskTracer {
+
+    private final Map<Class<?>, Trace> traces = new ConcurrentHashMap<>();
+    private final long startMs = System.currentTimeMillis();
+
+    // -=- recording
+
+    public void recordState(Class<?> token, long nanos) {
+        this.trace(token).state.record(nanos);
+    }
+
+    public void recordExecute(Class<?> token, long nanos, Invalidator result) {
+        Trace trace = this.trace(token);
+        trace.execute.record(nanos);
+        trace.invalidators.computeIfAbsent(TaskTracer.label(result), k -> new LongAdder()).increment();
+    }
+
+    public void recordChild(Class<?> token, AetherTask<?> child) {
+        this.trace(token).children.computeIfAbsent(child.getTaskName(), k -> new LongAdder()).increment();
+    }
+
+    private Trace trace(Class<?> token) {
+        return this.traces.computeIfAbsent(token, k -> new Trace());
+    }
+
+    // -=- reading
+
+    public LatencyHistogram.Snapshot getStateLatency(Class<?> token) {
+        return this.trace(token).state.snapshot();
+    }
+
+    public LatencyHistogram.Snapshot getExecuteLatency(Class<?> token) {
+        return this.trace(token).execute.snapshot();
+    }
+
+    // -=- exporting
+
+    /**
+     * Appends a snapshot of every task traced since the last export to a file
+     * within {@code folder} every {@code periodMs}, starting a fresh window
+     * each time
+     *
+     * @param scheduler The scheduler to export from
+     * @param folder The folder to write traces to
+     * @param periodMs Milliseconds between exports, 0 or less to not export
+     */
+    public void scheduleExport(AetherScheduler scheduler, File folder, long periodMs) {
+        if (periodMs <= 0) {
+            return;
+        }
+        File out = new File(folder, "tasks-" + this.startMs + ".jsonl");
+        scheduler.runRepeating(() -> this.export(out), periodMs, periodMs);
+    }
+
+    public void export(File out) {
+        if (this.traces.isEmpty()) {
+            return;
+        }
+        File parent = out.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            Logging.warning("Unable to create task trace folder: " + parent);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        StringBuilder sb = new StringBuilder();
+        this.traces.forEach((token, trace) -> {
+            LatencyHistogram.Snapshot state = trace.state.snapshotAndReset();
+            LatencyHistogram.Snapshot execute = trace.execute.snapshotAndReset();
+            //counted even without samples, as inlined states record children but no state latency
+            StringBuilder children = new StringBuilder();
+            boolean counted = TaskTracer.appendCounts(children, trace.children);
+            StringBuilder invalidators = new StringBuilder();
+            counted |= TaskTracer.appendCounts(invalidators, trace.invalidators);
+            if (state.getCount() == 0 && execute.getCount() == 0 && !counted) {
+                return;
+            }
+            sb.append("{\"time\":").append(now)
+                    .append(",\"task\":\"").append(TaskTracer.escape(token.getName())).append('"')
+                    .append(",\"state\":");
+            TaskTracer.appendLatency(sb, state);
+            sb.append(",\"execute\":");
+            TaskTracer.appendLatency(sb, execute);
+            sb.append(",\"children\":").append(children);
+            sb.append(",\"invalidators\":").append(invalidators);
+            sb.append("}\n");
+        });
+        if (sb.length() == 0) {
+            return;
+        }
+        try (Writer w = new FileWriter(out, true)) {
+            w.write(sb.toString());
+        } catch (IOException e) {
+            Logging.severe("Error exporting task traces:");
+            Logging.severe(Readable.stackTraceToString(e));
+        }
+    }
+
+    private static void appendLatency(StringBuilder sb, LatencyHistogram.Snapshot snap) {
+        sb.append("{\"n\":").append(snap.getCount())
+                .append(",\"meanUs\":").append(TimeUnit.NANOSECONDS.toMicros(snap.getMeanNanos()))
+                .append(",\"p50Us\":").append(TimeUnit.NANOSECONDS.toMicros(snap.getPercentileNanos(0.5)))
+                .append(",\"p99Us\":").append(TimeUnit.NANOSECONDS.toMicros(snap.getPercentileNanos(0.99)))
+                .append(",\"maxUs\":").append(TimeUnit.NANOSECONDS.toMicros(snap.getMaxNanos()))
+                .append('}');
+    }
+
+    //resets the counts as it goes, returning whether any were non-zero
+    private static boolean appendCounts(StringBuilder sb, Map<String, LongAdder> counts) {
+        sb.append('{');
+        boolean first = true;
+        for (Map.Entry<String, LongAdder> ent : counts.entrySet()) {
+            long count = ent.getValue().sumThenReset();
+            if (count == 0) {
+                continue;
+            }
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append('"').append(TaskTracer.escape(ent.getKey())).append("\":").append(count);
+        }
+        sb.append('}');
+        return !first;
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String label(Invalidator inv) {
+        if (inv == null) {
+            return "null";
+        } else if (inv.isEnd()) {
+            return "end";
+        } else if (inv.isAll()) {
+            return "all";
+        } else if (inv.isRange()) {
+            return "range:" + inv.getRange();
+        }
+        return "none";
+    }
+
+    private static class Trace {
+
+        private final LatencyHistogram state = new LatencyHistogram();
+        private final LatencyHistogram execute = new LatencyHistogram();
+        private final Map<String, LongAdder> children = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> invalidators = new ConcurrentHashMap<>();
+    }
+}
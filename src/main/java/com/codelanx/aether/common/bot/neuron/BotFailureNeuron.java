@@ -15,4 +15,9 @@ public class BotFailureNeuron extends Neuron {
     public void fire(Brain brain) {
 
     }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
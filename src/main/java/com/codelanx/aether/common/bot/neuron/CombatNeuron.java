@@ -1,8 +1,8 @@
 package com.codelanx.aether.common.bot.neuron;
 
 import com.codelanx.aether.common.bot.Brain;
+import com.codelanx.aether.common.cache.Snapshot;
 import com.runemate.game.api.hybrid.entities.Player;
-import com.runemate.game.api.hybrid.region.Players;
 
 public class CombatNeuron extends Neuron {
 
@@ -11,7 +11,7 @@ public class CombatNeuron extends Neuron {
         if (true) {
             return false;
         }
-        Player p = Players.getLocal();
+        Player p = Snapshot.get().getLocalPlayer();
         return p.getTarget() != null || p.getHealthGauge() != null;
     }
 
@@ -29,4 +29,9 @@ public class CombatNeuron extends Neuron {
     public boolean isBlocking() {
         return false;
     }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
@@ -2,11 +2,15 @@ package com.codelanx.aether.common.bot.neuron;
 
 import com.codelanx.aether.common.bot.Aether;
 import com.codelanx.aether.common.bot.Brain;
+import com.codelanx.aether.common.event.HandlerList;
+import com.codelanx.aether.common.event.type.client.ResumeEvent;
 import com.codelanx.aether.common.input.UserInput;
 import com.codelanx.commons.logging.Logging;
 import com.runemate.game.api.hybrid.Environment;
 import com.runemate.game.api.script.framework.task.Task;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -42,6 +46,12 @@ public class GameEventNeuron extends Neuron {
         return Environment.getBot().getGameEventController() != null;
     }
 
+    //runemate's handlers (e.g. login) are most likely needed right after a resume
+    @Override
+    public Collection<HandlerList> getWakeEvents() {
+        return Collections.singletonList(ResumeEvent.getHandlerList());
+    }
+
     @Override
     public boolean isEvaluationSkipped() {
         return this.handlingGameEvent.get();
@@ -0,0 +1,153 @@
+package com.codelanx.aether.common.bot.neuron;
+
+import com.codelanx.aether.common.bot.metric.TaskTracer;
+import com.codelanx.aether.common.bot.task.AetherTask;
+import com.codelanx.commons.logging.Logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Spots the logic tree walking the same sequence of root-to-leaf paths over
+ * and over (e.g. withdraw, walk, cook, walk back) and compiles it into a
+ * macro. While the macro holds, its leaves are run one after another, and of
+ * the tasks along each path only the leaf's parent and those cheap enough to
+ * evaluate inline are checked, the rest are trusted to still branch as they
+ * did. The first check to disagree with the trace drops the macro
+ */
+final class HotTrace {
+
+    //the longest sequence of walks compiled into a macro
+    private static final int MAX_MACRO_LENGTH = 8;
+    private static final int HISTORY = 64;
+    private final List<List<AetherTask<?>>> history = new ArrayList<>();
+    private List<List<AetherTask<?>>> macro;
+    private int next;
+
+    enum Check {
+        READY,
+        WAITING,
+        MISSED,
+    }
+
+    /**
+     * Records the path a full walk took, compiling a macro once the latest
+     * walks are one sequence repeated enough times
+     *
+     * @param path The tasks walked through, from the root to the executed leaf
+     * @param repeats How many times a sequence must repeat to be compiled
+     */
+    void record(List<AetherTask<?>> path, int repeats) {
+        if (this.macro != null) {
+            return;
+        }
+        this.history.add(path);
+        if (this.history.size() > HISTORY) {
+            this.history.remove(0);
+        }
+        int size = this.history.size();
+        for (int length = 1; length <= MAX_MACRO_LENGTH && length * repeats <= size; length++) {
+            if (this.repeats(length, repeats)) {
+                this.macro = new ArrayList<>(this.history.subList(size - length, size));
+                this.next = 0;
+                Logging.info("[Brain] Running a hot trace of " + length + " steps, repeated " + repeats + " times");
+                return;
+            }
+        }
+    }
+
+    //whether the last length * repeats walks are made of one sequence of the given length
+    private boolean repeats(int length, int repeats) {
+        int size = this.history.size();
+        for (int i = size - length * repeats; i < size - length; i++) {
+            if (!HotTrace.samePath(this.history.get(i), this.history.get(i + length))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isHot() {
+        return this.macro != null;
+    }
+
+    //the task the macro was walked from
+    AetherTask<?> getRoot() {
+        return this.macro.get(this.next).get(0);
+    }
+
+    //the path of the next step, from the root to the leaf to execute
+    List<AetherTask<?>> peek() {
+        return Collections.unmodifiableList(this.macro.get(this.next));
+    }
+
+    void advance() {
+        this.next = (this.next + 1) % this.macro.size();
+    }
+
+    //drops the macro, and the walks it was compiled from so it has to repeat in full again
+    void drop() {
+        this.macro = null;
+        this.history.clear();
+    }
+
+    //checks the tasks along the next step's path
+    Check check(TaskTracer tracer) {
+        return HotTrace.check(this.macro.get(this.next), tracer);
+    }
+
+    /**
+     * Checks the tasks along a path the tree is expected to walk. The leaf's
+     * parent and the tasks whose states are already requested or cheap to
+     * evaluate are checked, the rest are trusted to branch as expected.
+     * Unresolved states are requested, so a path found {@link Check#WAITING}
+     * is checked again once they resolve
+     *
+     * @param path The tasks to walk through, from the root to the leaf
+     * @param tracer The tracer to report the checked branches to
+     * @return Whether the path's leaf may be executed
+     */
+    static Check check(List<AetherTask<?>> path, TaskTracer tracer) {
+        for (int i = 0; i < path.size() - 1; i++) {
+            AetherTask<?> guard = path.get(i);
+            //the leaf may execute off its parent's state, so that one is always resolved
+            boolean parent = i == path.size() - 2;
+            if (!parent && !guard.isStateRequested() && !guard.isSync()) {
+                continue;
+            }
+            if (!guard.isStateRetrieved() && !guard.checkDeadline()) {
+                return Check.WAITING;
+            }
+            if (guard.getState().isCompletedExceptionally()) {
+                return Check.MISSED;
+            }
+            AetherTask<?> child;
+            try {
+                child = guard.getChild();
+            } catch (ExecutionException | InterruptedException e) {
+                return Check.MISSED;
+            }
+            child = child == null ? guard.getDefaultChild() : child;
+            if (child != path.get(i + 1)) {
+                return Check.MISSED;
+            }
+            tracer.recordChild(guard.getToken(), child);
+            guard.observeState();
+        }
+        return Check.READY;
+    }
+
+    private static boolean samePath(List<AetherTask<?>> one, List<AetherTask<?>> other) {
+        if (one.size() != other.size()) {
+            return false;
+        }
+        for (int i = 0; i < one.size(); i++) {
+            if (one.get(i) != other.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
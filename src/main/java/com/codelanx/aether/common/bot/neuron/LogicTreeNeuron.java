@@ -1,38 +1,73 @@
 package com.codelanx.aether.common.bot.neuron;
 
+import com.codelanx.aether.common.BotConfig;
+import com.codelanx.aether.common.bot.Aether;
+import com.codelanx.aether.common.bot.AsyncBot;
 import com.codelanx.aether.common.bot.Brain;
 import com.codelanx.aether.common.bot.Invalidator;
+import com.codelanx.aether.common.bot.Invalidators;
+import com.codelanx.aether.common.bot.metric.TaskTracer;
 import com.codelanx.aether.common.bot.mission.Mission;
 import com.codelanx.aether.common.bot.task.AetherTask;
 import com.codelanx.commons.logging.Logging;
 import com.codelanx.commons.util.OptimisticLock;
 import com.codelanx.commons.util.Readable;
-import com.codelanx.commons.util.Scheduler;
+import com.codelanx.aether.common.bot.AetherScheduler;
 import com.runemate.game.api.script.Execution;
 import com.runemate.game.api.script.framework.AbstractBot.State;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 //TODO: Import brain logic
 public class LogicTreeNeuron extends Neuron {
 
     private static final long START_MS = System.currentTimeMillis();
-    private final List<Runnable> immediateTasks = new ArrayList<>();
-    private final List<AetherTask<?>> immediateRoot = new ArrayList<>();
-    private final List<Mission<?>> nextMission = new ArrayList<>();
+    //the most branches of a single unresolved task that are evaluated ahead of time
+    private static final int MAX_SPECULATION_WIDTH = 4;
+    //the deepest the tree is walked ahead of an executing task
+    private static final int MAX_PREWALK = 8;
+    //the most waits held at once, the oldest are cancelled past this
+    private static final int MAX_DELAYS = 16;
+    //tasks are registered from worker threads and taken on the bot thread, by lane in this order:
+    //immediate runnables, then immediate task trees, then missions
+    private final Deque<Runnable> immediateTasks = new ConcurrentLinkedDeque<>();
+    private final Deque<AetherTask<?>> immediateRoot = new ConcurrentLinkedDeque<>();
+    private final Deque<Mission<?>> nextMission = new ConcurrentLinkedDeque<>();
     private final LinkedList<AetherTask<?>> invalidationQueue = new LinkedList<>();
     private final Map<Class<?>, AetherTask<?>> taskMap = new HashMap<>();
     private final OptimisticLock taskLock = new OptimisticLock();
-    private final List<CompletableFuture<Invalidator>> runningExecs = new ArrayList<>();
+    //the execution of the leaf the tree last walked to, set on the bot thread only, one at a time
+    private final AtomicReference<CompletableFuture<Invalidator>> execution = new AtomicReference<>();
+    //waits registered through #delayUntil from any thread, oldest first. The tree waits on these
+    //as well as the execution, but they're bounded and completed apart from it
+    private final Deque<CompletableFuture<Invalidator>> delays = new ConcurrentLinkedDeque<>();
+    //tasks whose states were requested before the walk reached them
+    private final Set<AetherTask<?>> speculated = Collections.newSetFromMap(new IdentityHashMap<>());
+    //the invalidator each leaf last returned, used to predict the next one
+    private final Map<Class<?>, Invalidator> lastInvalidators = new HashMap<>();
+    private AetherTask<?> executing;
+    //the path, root to leaf, the tree is predicted to walk once the executing task returns prewalkFor,
+    //held once it did until the leaf is dispatched or the path misses. Bot thread only
+    private List<AetherTask<?>> prewalk;
+    private Invalidator prewalkFor;
+    private boolean prewalkHeld;
+    private final HotTrace hotTrace = new HotTrace();
     private String lastThought;
 
     @Override
@@ -42,11 +77,13 @@ public class LogicTreeNeuron extends Neuron {
 
     //invalidates and removes immediate tasks
     public void invalidate() {
+        this.discardSpeculation(null);
+        this.discardPrewalk();
+        this.hotTrace.drop();
         this.immediateRoot.clear();
         this.immediateTasks.clear();
         this.nextMission.forEach(AetherTask::forceInvalidate);
-        this.runningExecs.forEach(c -> c.cancel(true));
-        this.runningExecs.clear();
+        this.cancelRunning();
     }
 
     @Override
@@ -61,19 +98,37 @@ public class LogicTreeNeuron extends Neuron {
 
     //removes all tasks and missions
     public void clear() {
+        this.discardSpeculation(null);
+        this.discardPrewalk();
+        this.hotTrace.drop();
         this.nextMission.clear();
         this.immediateRoot.clear();
         this.immediateTasks.clear();
-        this.runningExecs.forEach(c -> c.cancel(true));
-        this.runningExecs.clear();
+        this.cancelRunning();
+    }
+
+    //drains rather than clears, so nothing registered meanwhile is dropped uncancelled
+    private void cancelRunning() {
+        CompletableFuture<Invalidator> exec = this.execution.getAndSet(null);
+        if (exec != null) {
+            exec.cancel(true);
+        }
+        while ((exec = this.delays.pollFirst()) != null) {
+            exec.cancel(true);
+        }
     }
 
     public boolean isThinking() {
-        if (this.runningExecs.isEmpty()) {
-            return false;
+        CompletableFuture<Invalidator> exec = this.execution.get();
+        if (exec != null && !exec.isDone()) {
+            return true;
+        }
+        for (CompletableFuture<Invalidator> wait : this.delays) {
+            if (!wait.isDone()) {
+                return true;
+            }
         }
-        CompletableFuture<Invalidator> inv = this.runningExecs.get(0);
-        return !inv.isDone() && !inv.isCompletedExceptionally();
+        return false;
     }
 
     @Override
@@ -81,62 +136,38 @@ public class LogicTreeNeuron extends Neuron {
         if (this.isThinking()) {
             return;
         }
-        if (!this.runningExecs.isEmpty()) {
-            Logging.info("#BrainDebug currentTask not null");
-            CompletableFuture<Invalidator> comp = this.runningExecs.get(0);
-            if (comp.isCancelled()) {
-                Logging.info("#BrainDebug currentTask was cancelled, removing...");
-                this.runningExecs.remove(0);
-            } else if (comp.isDone() || comp.isCompletedExceptionally()) {
-                Logging.info("#BrainDebug currentTask done");
-                try {
-                    Logging.info("#BrainDebug getting current task return value");
-                    Invalidator inv = comp.get();
-                    Logging.info("#BrainDebug Invalidator: " + inv);
-                    if (!inv.isNone()) {
-                        Logging.info("#BrainDebug invalidating...");
-                        if (inv.isRange()) {
-                            Iterator<AetherTask<?>> itr = this.invalidationQueue.iterator();
-                            for (int i = 0; i < inv.getRange() && itr.hasNext(); i++) {
-                                itr.next().invalidate();
-                                itr.remove();
-                            }
-                        } else {
-                            //invalidate all
-                            this.invalidationQueue.forEach(AetherTask::invalidate);
-                            this.invalidationQueue.clear();
-                        }
-                    } else if (inv.isEnd()) {
-                        Logging.info("#BrainDebug Hit invalid state - ending bot");
-                        brain.getBot().stop();
-                        return;
-                    } else {
-                        this.invalidationQueue.stream().filter(AetherTask::invalidateAnyway).forEach(AetherTask::invalidate);
-                        Logging.info("#BrainDebug invalidation skipped");
-                    }
-                } catch (ExecutionException e) {
-                    this.setLastThought("Error executing task for bot '" + brain.getBot().getClass().getSimpleName() + "':");
-                    Logging.info(Readable.stackTraceToString(e));
-                } catch (InterruptedException e) {
-                    Logging.severe("[Brain] Last task interrupted (shutting down?):");
-                    Logging.info(Readable.stackTraceToString(e));
-                    this.invalidationQueue.clear();
-                    brain.getBot().stop();
-                    return;
-                } catch (Throwable t) {
-                    Logging.info("#BrainDebug totally uncaught exception wtf, how rude");
-                    Logging.info("#BrainDebug ex: " + Readable.stackTraceToString(t));
-                }
-                this.invalidationQueue.clear();
-                Logging.info("#BrainDebug currentTask check done");
-                this.runningExecs.remove(0);
+        //finished waits apply first, then the execution they were registered alongside
+        CompletableFuture<Invalidator> wait;
+        boolean waitsInvalidated = false;
+        while ((wait = this.delays.peekFirst()) != null && wait.isDone()) {
+            this.delays.remove(wait);
+            Invalidator inv = wait.isCancelled() ? null : this.complete(brain, wait);
+            if (inv != null && inv.isEnd()) {
+                return;
+            }
+            waitsInvalidated |= inv != null && !inv.isNone();
+        }
+        CompletableFuture<Invalidator> comp = this.execution.get();
+        if (comp != null) {
+            Logging.info("#BrainDebug currentTask done");
+            Invalidator inv = comp.isCancelled() ? null : this.complete(brain, comp);
+            this.execution.compareAndSet(comp, null);
+            if (this.executing != null && inv != null) {
+                this.lastInvalidators.put(this.executing.getToken(), inv);
+            }
+            this.executing = null;
+            //a wait's invalidator may have reached tasks the pre-walk would otherwise trust
+            if (inv != null && !inv.isNone() && !waitsInvalidated && this.prewalk != null && inv.equals(this.prewalkFor)) {
+                Logging.info("#BrainDebug pre-walk holds");
+                this.prewalkHeld = true;
             } else {
-                Logging.info("#BrainDebug currentTask not complete");
+                this.discardPrewalk();
+            }
+            if (inv != null && inv.isEnd()) {
                 return;
             }
-        } else {
-            this.invalidationQueue.clear();
         }
+        this.invalidationQueue.clear();
         /*if (!this.immediateTasks.isEmpty()) {
             Logging.info("Running immediate task...");
             Runnable run = this.immediateTasks.remove(0);
@@ -145,18 +176,27 @@ public class LogicTreeNeuron extends Neuron {
                 return null;
             });
         }*/
+        int repeats = BotConfig.HOT_TRACE_REPEATS.as(int.class);
+        if (this.prewalkHeld && this.firePrewalk(brain, repeats)) {
+            return;
+        }
+        if (repeats > 0 && this.hotTrace.isHot() && this.fireHotTrace(brain)) {
+            return;
+        }
         this.setLastThought("#BrainDebug running root logic");
         AetherTask<?> root = this.selectNextTask(brain);
         if (root == null) {
             //TODO: stop bot
             return;
         }
+        boolean fromMission = root == this.nextMission.peekFirst();
         StringBuilder prefix = new StringBuilder();
         while (!root.isExecutable()) {
             //this.setLastThought(prefix.toString() + "Validating task: " + root.getTaskName());
-            if (!root.isStateRetrieved()) {
-                //try again next tick
+            if (!root.isStateRetrieved() && !root.checkDeadline()) {
+                //try again next tick, evaluating where we're likely headed in the meantime
                 Logging.info("State not retrieved, checking later");
+                this.speculate(root, BotConfig.SPECULATION_DEPTH.as(int.class));
                 this.invalidationQueue.clear();
                 return;
             }
@@ -185,6 +225,8 @@ public class LogicTreeNeuron extends Neuron {
                     return;
                 }
             }
+            brain.getBot().getTracer().recordChild(root.getToken(), next);
+            root.observeState();
             this.setLastThought(prefix.toString() + root.getTaskName() + " returning child (state: " + state + ", child: " + Optional.ofNullable(next).map(AetherTask::getTaskName).orElse(null) + ")");
             prefix.append('\t');
             this.invalidationQueue.push(root);
@@ -197,19 +239,261 @@ public class LogicTreeNeuron extends Neuron {
         //root should be executable now
         //due to the nature of runemate's api, we'll halt re-evaluation
         // until the task is executed
-        AetherTask<?> froot = root;
-        if (this.runningExecs.isEmpty()) {
-            CompletableFuture<Invalidator> done = Scheduler.complete(froot::execute);
-            if (this.runningExecs.isEmpty()) {
-                this.runningExecs.add(done);
+        List<AetherTask<?>> path = new ArrayList<>(this.invalidationQueue.size() + 1);
+        this.invalidationQueue.descendingIterator().forEachRemaining(path::add);
+        path.add(root);
+        if (this.dispatch(brain, root) && repeats > 0 && fromMission) {
+            this.hotTrace.record(path, repeats);
+        }
+    }
+
+    //runs the next step of the hot trace, returning false if the tree should be walked instead
+    private boolean fireHotTrace(Brain brain) {
+        Mission<?> mission = this.nextMission.peekFirst();
+        if (!this.immediateTasks.isEmpty() || !this.immediateRoot.isEmpty()
+                || mission == null || mission.hasEnded() || mission != this.hotTrace.getRoot()) {
+            this.hotTrace.drop();
+            return false;
+        }
+        switch (this.hotTrace.check(brain.getBot().getTracer())) {
+            case WAITING:
+                return true;
+            case MISSED:
+                this.setLastThought("Hot trace no longer holds, walking the tree");
+                this.hotTrace.drop();
+                return false;
+        }
+        List<AetherTask<?>> path = this.hotTrace.peek();
+        AetherTask<?> leaf = path.get(path.size() - 1);
+        //queued as the walk would have, so the leaf's invalidator applies the same way
+        path.subList(0, path.size() - 1).forEach(this.invalidationQueue::push);
+        this.setLastThought("Executing hot trace task: " + leaf.getTaskName());
+        if (this.dispatch(brain, leaf)) {
+            this.hotTrace.advance();
+        }
+        return true;
+    }
+
+    /**
+     * Applies the invalidator a finished execution or wait returned to the
+     * tasks walked through
+     *
+     * @param brain The brain firing this neuron
+     * @param comp The finished execution or wait
+     * @return The applied invalidator, null if it failed, or
+     *         {@link Invalidators#END} if the bot is being stopped
+     */
+    private Invalidator complete(Brain brain, CompletableFuture<Invalidator> comp) {
+        try {
+            Logging.info("#BrainDebug getting current task return value");
+            Invalidator inv = comp.get();
+            Logging.info("#BrainDebug Invalidator: " + inv);
+            if (!inv.isNone()) {
+                Logging.info("#BrainDebug invalidating...");
+                this.invalidateQueue(inv);
+            } else if (inv.isEnd()) {
+                Logging.info("#BrainDebug Hit invalid state - ending bot");
+                brain.getBot().stop();
             } else {
-                this.runningExecs.remove(0).cancel(true);
+                this.invalidationQueue.stream().filter(AetherTask::invalidateAnyway).forEach(this::invalidatePositional);
+                Logging.info("#BrainDebug invalidation skipped");
+            }
+            return inv;
+        } catch (ExecutionException e) {
+            this.setLastThought("Error executing task for bot '" + brain.getBot().getClass().getSimpleName() + "':");
+            Logging.info(Readable.stackTraceToString(e));
+        } catch (InterruptedException e) {
+            Logging.severe("[Brain] Last task interrupted (shutting down?):");
+            Logging.info(Readable.stackTraceToString(e));
+            this.invalidationQueue.clear();
+            brain.getBot().stop();
+            return Invalidators.END;
+        } catch (Throwable t) {
+            Logging.info("#BrainDebug totally uncaught exception wtf, how rude");
+            Logging.info("#BrainDebug ex: " + Readable.stackTraceToString(t));
+        }
+        return null;
+    }
+
+    //runs the pre-walked leaf once the tasks it can't trust agree, returning false if the tree should be walked instead
+    private boolean firePrewalk(Brain brain, int repeats) {
+        List<AetherTask<?>> path = this.prewalk;
+        Mission<?> mission = this.nextMission.peekFirst();
+        if (!this.immediateTasks.isEmpty() || !this.immediateRoot.isEmpty() || this.hotTrace.isHot()
+                || mission == null || mission.hasEnded() || mission != path.get(0)) {
+            this.discardPrewalk();
+            return false;
+        }
+        switch (HotTrace.check(path, brain.getBot().getTracer())) {
+            case WAITING:
+                return true;
+            case MISSED:
+                this.setLastThought("Pre-walk no longer holds, walking the tree");
+                this.discardPrewalk();
+                return false;
+        }
+        this.discardPrewalk();
+        AetherTask<?> leaf = path.get(path.size() - 1);
+        //queued as the walk would have, so the leaf's invalidator applies the same way
+        path.subList(0, path.size() - 1).forEach(this.invalidationQueue::push);
+        this.setLastThought("Executing pre-walked task: " + leaf.getTaskName());
+        if (this.dispatch(brain, leaf) && repeats > 0) {
+            this.hotTrace.record(path, repeats);
+        }
+        return true;
+    }
+
+    //executes the task the walk ended on, returning false if an execution is still pending
+    private boolean dispatch(Brain brain, AetherTask<?> froot) {
+        this.discardSpeculation(froot);
+        if (this.execution.get() != null) {
+            return false;
+        }
+        AetherScheduler scheduler = brain.getBot().getScheduler();
+        TaskTracer tracer = brain.getBot().getTracer();
+        long submitted = System.nanoTime();
+        CompletableFuture<Invalidator> done = scheduler.complete(() -> froot.learnReads(froot::execute));
+        AetherTask<?> parent = this.invalidationQueue.peekFirst();
+        done.whenComplete((inv, ex) -> {
+            long elapsed = System.nanoTime() - submitted;
+            tracer.recordExecute(froot.getToken(), elapsed, inv);
+            if (parent != null && ex == null) {
+                parent.reportCost(froot, TimeUnit.NANOSECONDS.toMillis(elapsed));
+            }
+        });
+        double confidence = BotConfig.PREFETCH_CONFIDENCE.as(double.class);
+        if (confidence <= 1) {
+            this.prefetch(brain.getBot(), confidence);
+        }
+        Invalidator predicted = this.lastInvalidators.get(froot.getToken());
+        if (BotConfig.PIPELINED_WALK.as(boolean.class) && predicted != null && !predicted.isNone()) {
+            this.prewalk(predicted);
+        }
+        this.executing = froot;
+        //waits registered meanwhile go to their own lane, so nothing else can take this slot
+        this.execution.compareAndSet(null, scheduler.wakeOn(done));
+        return true;
+    }
+
+    //while the task executes, walks from the highest task its predicted invalidator would reach down
+    //the branches each task's predictor expects, to the leaf they end on. If the invalidator matches,
+    //that leaf runs as soon as its parent (and anything already resolved) agrees, trusting the tasks
+    //between as a hot trace does instead of walking them a level per tick. Nothing is requested here,
+    //as the invalidator would clear those states again once the execution returns
+    private void prewalk(Invalidator predicted) {
+        this.discardPrewalk();
+        int size = this.invalidationQueue.size();
+        if (size == 0) {
+            return;
+        }
+        int invalidated = predicted.isRange() ? Math.min(predicted.getRange(), size) : size;
+        List<AetherTask<?>> path = new ArrayList<>();
+        //the tasks above those invalidated keep their states, and still start the path from the root
+        Iterator<AetherTask<?>> above = this.invalidationQueue.descendingIterator();
+        for (int i = size - invalidated; i > 0; i--) {
+            path.add(above.next());
+        }
+        AetherTask<?> task = this.invalidationQueue.get(invalidated - 1);
+        for (int depth = 0; task != null && depth < MAX_PREWALK; depth++, task = task.getPredictedChild(0)) {
+            path.add(task);
+            if (task.isExecutable()) {
+                this.prewalk = path;
+                this.prewalkFor = predicted;
+                return;
+            }
+        }
+    }
+
+    private void discardPrewalk() {
+        this.prewalk = null;
+        this.prewalkFor = null;
+        this.prewalkHeld = false;
+    }
+
+    private void invalidateQueue(Invalidator inv) {
+        if (inv.isRange()) {
+            Iterator<AetherTask<?>> itr = this.invalidationQueue.iterator();
+            for (int i = 0; i < inv.getRange() && itr.hasNext(); i++) {
+                this.invalidatePositional(itr.next());
+                itr.remove();
             }
+        } else {
+            //invalidate all
+            this.invalidationQueue.forEach(this::invalidatePositional);
+            this.invalidationQueue.clear();
         }
     }
 
+    //requests the states of the tasks the walk is likely to reach next, so that they
+    //resolve alongside their parent rather than one tick after another
+    private void speculate(AetherTask<?> parent, int depth) {
+        if (depth <= 0) {
+            return;
+        }
+        List<AetherTask<?>> candidates;
+        if (parent.isStateRetrieved()) {
+            if (parent.getState().isCompletedExceptionally()) {
+                return;
+            }
+            AetherTask<?> next;
+            try {
+                next = parent.getChild();
+            } catch (ExecutionException | InterruptedException e) {
+                return;
+            }
+            next = next == null ? parent.getDefaultChild() : next;
+            candidates = next == null ? Collections.emptyList() : Collections.singletonList(next);
+        } else {
+            candidates = parent.getBranches();
+        }
+        for (int i = 0; i < candidates.size() && i < MAX_SPECULATION_WIDTH; i++) {
+            AetherTask<?> child = candidates.get(i);
+            //sync states would be evaluated right here on the bot thread, and executables have nothing to resolve
+            if (child.isSync() || child.isExecutable()) {
+                continue;
+            }
+            this.speculated.add(child);
+            child.getState();
+            this.speculate(child, depth - 1);
+        }
+    }
+
+    //while the task executes, warms the cache reads of the branches the tasks walked through are
+    //confidently predicted to take when they're next evaluated
+    private void prefetch(AsyncBot bot, double confidence) {
+        for (AetherTask<?> task : this.invalidationQueue) {
+            AetherTask<?> likely = task.getPredictedChild(confidence);
+            if (likely != null) {
+                likely.prefetch(bot);
+            }
+        }
+    }
+
+    //tasks tracking their dependencies are invalidated when those change instead, so they
+    //survive an executed task's invalidator as long as what they read is unchanged
+    private void invalidatePositional(AetherTask<?> task) {
+        if (!task.isDependencyTracked() || !Aether.getBot().getDependencies().isTracking(task)) {
+            task.invalidate();
+        }
+    }
+
+    //invalidates speculated tasks the walk didn't pass through to reach the executed task, as
+    //nothing else would. With no executed task, every speculated task is invalidated
+    private void discardSpeculation(AetherTask<?> executed) {
+        if (this.speculated.isEmpty()) {
+            return;
+        }
+        if (executed != null) {
+            this.speculated.removeAll(this.invalidationQueue);
+            this.speculated.remove(executed);
+        }
+        this.speculated.forEach(AetherTask::invalidate);
+        this.speculated.clear();
+    }
+
     public void register(Mission<?> mission) {
-        this.nextMission.add(mission);
+        mission.compile();
+        this.nextMission.addLast(mission);
     }
 
     public void registerImmediate(Runnable run) {
@@ -218,7 +502,7 @@ public class LogicTreeNeuron extends Neuron {
 
     //TODO: Not use Execution
     public void registerImmediate(Runnable run, long delay) {
-        this.immediateTasks.add(delay <= 0 ? run : () -> {
+        this.immediateTasks.addLast(delay <= 0 ? run : () -> {
             run.run();
             Execution.delay(delay);
         });
@@ -230,15 +514,17 @@ public class LogicTreeNeuron extends Neuron {
 
     public Mission<?> popMission() {
         //this.forget(this.getCurrentMission());
-        if (!this.nextMission.isEmpty()) {
-            return this.nextMission.remove(0);
+        Mission<?> back = this.nextMission.pollFirst();
+        if (back != null) {
+            return back;
         }
         throw new NoSuchElementException("Cannot pop an empty brain - it's dead Negan!");
     }
 
     public void registerImmediate(AetherTask<?> task) {
-        Logging.info("Registering immediate AetherTask[" + this.immediateRoot.size() + "]: " + task.getClass().getSimpleName());
-        this.immediateRoot.add(task);
+        Logging.info("Registering immediate AetherTask: " + task.getClass().getSimpleName());
+        task.compile();
+        this.immediateRoot.addLast(task);
     }
 
     private void setLastThought(String thought) {
@@ -248,41 +534,57 @@ public class LogicTreeNeuron extends Neuron {
 
 
     private AetherTask<?> selectNextTask(Brain brain) {
-        Runnable immediate = this.immediateTasks.isEmpty() ? null : this.immediateTasks.remove(0);
+        Runnable immediate = this.immediateTasks.pollFirst();
         if (immediate != null) {
             this.setLastThought("Running immediate task...");
             return AetherTask.of(immediate);
         }
-        AetherTask<?> immediateRoot = this.immediateRoot.isEmpty() ? null : this.immediateRoot.remove(0);
+        AetherTask<?> immediateRoot = this.immediateRoot.pollFirst();
         if (immediateRoot != null) {
             this.setLastThought("Running immediate AetherTask (" + immediateRoot.getTaskName() + ")...");
             return immediateRoot;
         }
-        if (this.nextMission.isEmpty()) {
-            return brain.getBot().getState() == State.UNSTARTED ? AetherTask.NOTHING : null;
+        Mission<?> task = this.nextMission.peekFirst();
+        if (task == null) {
+            return brain.getBot().getState() == State.UNSTARTED ? brain.getBot().getNothingTask() : null;
         }
-        Mission<?> task = this.nextMission.get(0);
         if (task.hasEnded()) {
-            this.nextMission.remove(0);
-            if (this.nextMission.isEmpty()) {
+            this.nextMission.remove(task);
+            task = this.nextMission.peekFirst();
+            if (task == null) {
                 if (brain.getBot().getState() == State.UNSTARTED) {
-                    return AetherTask.NOTHING;
+                    return brain.getBot().getNothingTask();
                 }
                 //TODO: Proper Failure
                 return null;
             }
-            task = this.nextMission.get(0);
         }
         this.setLastThought("[" + (System.currentTimeMillis() - START_MS) + "] Running mission: " + task.getTaskName());
         return task;
     }
 
     public void delayUntil(CompletableFuture<Invalidator> task) {
-        this.runningExecs.add(0, task);
+        Aether.getScheduler().wakeOn(task);
+        this.delays.addLast(task);
+        //finished waits stay until the tree applies them, so only pending ones count
+        int pending = 0;
+        for (CompletableFuture<Invalidator> wait : this.delays) {
+            if (!wait.isDone()) {
+                pending++;
+            }
+        }
+        for (Iterator<CompletableFuture<Invalidator>> itr = this.delays.iterator(); pending > MAX_DELAYS && itr.hasNext(); ) {
+            CompletableFuture<Invalidator> oldest = itr.next();
+            if (!oldest.isDone()) {
+                Logging.warning("[Brain] Too many pending waits, cancelling the oldest");
+                oldest.cancel(true);
+                pending--;
+            }
+        }
     }
 
     public Mission<?> getCurrentMission() {
-        return this.nextMission.isEmpty() ? null : this.nextMission.get(0);
+        return this.nextMission.peekFirst();
     }
 
     public String getLastThought() {
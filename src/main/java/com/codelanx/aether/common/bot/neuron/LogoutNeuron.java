@@ -13,4 +13,9 @@ public class LogoutNeuron extends Neuron {
     public void fire(Brain brain) {
         //TODO: logout handling, snipped for now (incomplete)
     }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
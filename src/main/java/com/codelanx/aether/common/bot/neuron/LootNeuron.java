@@ -2,25 +2,28 @@ package com.codelanx.aether.common.bot.neuron;
 
 import com.codelanx.aether.common.bot.Brain;
 import com.codelanx.aether.common.cache.Caches;
+import com.codelanx.aether.common.cache.Snapshot;
 import com.codelanx.aether.common.input.UserInput;
 import com.codelanx.aether.common.json.item.Material;
 import com.runemate.game.api.hybrid.entities.GroundItem;
 import com.runemate.game.api.hybrid.entities.Player;
-import com.runemate.game.api.hybrid.region.Players;
 import com.runemate.game.api.hybrid.util.calculations.Distance;
 import com.runemate.game.api.hybrid.util.calculations.Distance.Algorithm;
 
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class LootNeuron extends Neuron {
 
-    private final Set<Material> pickup = new HashSet<>();
+    //read from worker threads when neurons are evaluated in parallel
+    private final Set<Material> pickup = ConcurrentHashMap.newKeySet();
+    //ground items only change on a game tick, no point querying them every brain tick
+    private static final long EVALUATION_INTERVAL_MS = 600;
 
     //TODO: Account for expensive items on ground
     @Override
@@ -30,7 +33,7 @@ public class LootNeuron extends Neuron {
 
     @Override
     public void fire(Brain brain) {
-        Player p = Players.getLocal();
+        Player p = Snapshot.get().getLocalPlayer();
         Map<Double, GroundItem> items = this.pickup.stream().flatMap(i -> Caches.forGroundItems().get(i.toGroundItemInquiry())).collect(Collectors.toMap(g -> Distance.between(p, g, Algorithm.EUCLIDEAN_SQUARED), Function.identity()));
         //TODO: ge value comparator
         GroundItem closest = items.entrySet().stream().min(Comparator.comparing(Entry::getKey)).map(Entry::getValue).orElse(null);
@@ -49,7 +52,17 @@ public class LootNeuron extends Neuron {
         return this.pickup.isEmpty();
     }
 
+    @Override
+    public long getEvaluationIntervalMS() {
+        return EVALUATION_INTERVAL_MS;
+    }
+
     public boolean targetLoot(Material loot, boolean target) {
         return target ? this.pickup.add(loot) : this.pickup.remove(loot);
     }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
@@ -1,6 +1,10 @@
 package com.codelanx.aether.common.bot.neuron;
 
 import com.codelanx.aether.common.bot.Brain;
+import com.codelanx.aether.common.event.HandlerList;
+
+import java.util.Collection;
+import java.util.Collections;
 
 //represents brain tasks which feed in information
 //these are separate from the logic tree and are mostly for higher-level
@@ -23,6 +27,23 @@ public abstract class Neuron {
         return false;
     }
 
+    //the minimum time between two calls to #applies, 0 to be evaluated every tick
+    //a neuron that isn't due is treated as not applying for that tick
+    public long getEvaluationIntervalMS() {
+        return 0;
+    }
+
+    //events which make this neuron due for evaluation (and wake the bot) regardless of its interval
+    public Collection<HandlerList> getWakeEvents() {
+        return Collections.emptyList();
+    }
+
+    //returns true if #applies may be called off the main bot thread, alongside the other neurons
+    //when enabled, the brain may evaluate it ahead of time and discard the result if an earlier neuron fires
+    public boolean isThreadSafe() {
+        return false;
+    }
+
     //returns whether or not this neuron is skipped
     //if a neuron is both skipped and blocking, it acts as a sleep on the main bot thread
     public boolean isEvaluationSkipped() {
@@ -3,6 +3,8 @@ package com.codelanx.aether.common.bot.neuron;
 import com.codelanx.aether.common.bot.Aether;
 import com.codelanx.aether.common.bot.Brain;
 import com.codelanx.aether.common.cache.Caches;
+import com.codelanx.aether.common.event.HandlerList;
+import com.codelanx.aether.common.event.type.client.InputQueuedEvent;
 import com.codelanx.aether.common.input.NewInputTarget;
 import com.codelanx.aether.common.input.UserInput;
 import com.codelanx.aether.common.input.UserInput3;
@@ -11,6 +13,8 @@ import com.codelanx.aether.common.input.type.NewMouseTarget;
 import com.codelanx.commons.logging.Logging;
 import com.codelanx.commons.util.Readable;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
@@ -31,10 +35,10 @@ public class UserInputNeuron extends Neuron {
         NewInputTarget next;
         try {
             if (curr == null) {
-                next = UserInput3.INSTANCE.getNextTarget();
+                next = UserInput3.get().getNextTarget();
             } else if (curr.isCancelled() || curr.isDone()) {
-                UserInput3.INSTANCE.popTarget();
-                next = UserInput3.INSTANCE.getNextTarget();
+                UserInput3.get().popTarget();
+                next = UserInput3.get().getNextTarget();
             } else if (curr.isCompletedExceptionally()) {
                 //TODO: invalidate bot
                 curr.handle((b, t) -> {
@@ -47,7 +51,7 @@ public class UserInputNeuron extends Neuron {
                 return;
             } else {
                 //we have a running input atm
-                next = UserInput3.INSTANCE.getNextTarget();
+                next = UserInput3.get().getNextTarget();
                 if (next instanceof NewMouseTarget) {
                     //TODO: find a new mousetarget and hover it after completion
                     //also note that this would be solely with none or keyboard input inbetween, not runemate ones
@@ -65,7 +69,7 @@ public class UserInputNeuron extends Neuron {
 
             if (curr == null || curr.isCancelled()) {
                 //schedule new task
-                next = UserInput3.INSTANCE.getNextTarget(1);
+                next = UserInput3.get().getNextTarget(1);
                 if (next != null) {
                     set = next.start();
                 }
@@ -122,4 +126,9 @@ public class UserInputNeuron extends Neuron {
     public boolean isBlocking() {
         return UserInput.hasTasks();
     }
+
+    @Override
+    public Collection<HandlerList> getWakeEvents() {
+        return Collections.singletonList(InputQueuedEvent.getHandlerList());
+    }
 }
@@ -1,23 +1,43 @@
 package com.codelanx.aether.common.bot.task;
 
+import com.codelanx.aether.common.BotConfig;
 import com.codelanx.aether.common.bot.Invalidator;
 import com.codelanx.aether.common.bot.Aether;
 import com.codelanx.aether.common.bot.Invalidators;
 import com.codelanx.commons.logging.Logging;
 import com.codelanx.aether.common.bot.task.predict.BranchPredictor;
+import com.codelanx.aether.common.bot.task.predict.LinkedHashTree;
+import com.codelanx.aether.common.bot.task.predict.Predictor;
 import com.codelanx.commons.util.Readable;
 import com.codelanx.commons.util.Reflections;
-import com.codelanx.commons.util.Scheduler;
+import com.codelanx.aether.common.bot.AetherScheduler;
+import com.codelanx.aether.common.bot.AsyncBot;
+import com.codelanx.aether.common.bot.metric.TaskTracer;
+import com.codelanx.aether.common.cache.GameCache;
+import com.codelanx.aether.common.cache.QueryType;
+import com.codelanx.aether.common.cache.Queryable;
+import com.codelanx.aether.common.cache.query.Inquiry;
 import com.runemate.game.api.hybrid.Environment;
 import com.runemate.game.api.script.framework.tree.BranchTask;
 import com.runemate.game.api.script.framework.tree.TreeTask;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -26,26 +46,50 @@ import java.util.stream.Stream;
 
 public abstract class AetherTask<T> {
 
-    public static final AetherTask<?> NOTHING = AetherTask.of(() -> {}); //todo: discourage / remove (use invalidator return)
-    private static final Map<Invalidator, AetherTask<?>> invalidators = new HashMap<>();
+    private static final Object UNKNOWN = new Object();
+    //evaluations and executions whose reads are learned for prefetching, after which it stops costing anything
+    private static final int LEARNED_RUNS = 8;
     private final Map<HashedTaskState<T>, AetherTask<?>> children = new HashMap<>();
     private final Map<Predicate<T>, AetherTask<?>> pickyKids = new LinkedHashMap<>();
-    private final BranchPredictor<T> predictor;
+    private final Predictor<T> predictor;
+    private volatile boolean predictorAttached;
     private AetherTask<?> defaultChild = null;
+    //null until compiled, and again whenever a child is registered afterwards
+    private volatile DecisionTable<T> table;
     private volatile CompletableFuture<T> state;
     private volatile CompletableFuture<Invalidator> execution;
+    private final CircuitBreaker breaker = new CircuitBreaker();
+    private final EvaluationCost cost = new EvaluationCost();
+    //the last state this task resolved to, for stale-tolerant tasks
+    private volatile Object lastKnown = UNKNOWN;
+    //System#nanoTime by which the pending state should resolve, 0 if it has no deadline
+    private volatile long deadlineAt;
+    //the evaluation last fed to the predictor, so walking through it again isn't a second observation
+    private CompletableFuture<T> observed;
+    private final Set<Dependency> learnedReads = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger learningRuns = new AtomicInteger();
+    private final CostTracker<AetherTask<?>> childCosts = new CostTracker<>();
 
     public AetherTask() {
-        this.predictor = new BranchPredictor<T>();
+        this.predictor = this.newPredictor();
     }
 
     public abstract Supplier<T> getStateNow();
 
+    //called once on construction, so shouldn't depend on subclass fields
+    protected Predictor<T> newPredictor() {
+        return BotConfig.CONTEXT_PREDICTION.as(boolean.class) ? new LinkedHashTree<>() : new BranchPredictor<>();
+    }
+
     public final AetherTask<?> validate() {
         return children.get(new HashedTaskState<>(this.getStateNow().get()));
     }
 
     public AetherTask<?> getChild(T state) {
+        DecisionTable<T> table = this.table;
+        if (table != null) {
+            return table.lookup(state);
+        }
         AetherTask<?> back = this.children.get(new HashedTaskState<>(state));
         if (back == null) {
             back = this.pickyKids.entrySet().stream().filter(e -> {
@@ -57,12 +101,99 @@ public abstract class AetherTask<T> {
         return back;
     }
 
+    //whether the state was requested since it was last invalidated, without requesting it
+    public final boolean isStateRequested() {
+        return this.state != null;
+    }
+
     public final boolean isStateRetrieved() {
         CompletableFuture<T> state = this.getState();
         return state.isDone();
     }
 
+    /**
+     * Whether this task's state is evaluated inline on the calling (bot)
+     * thread instead of on the pool. By default this is measured: states
+     * which consistently evaluate faster than a thread hop are inlined, and
+     * anything with an {@link #getEvaluationDeadlineMS() evaluation deadline}
+     * never is. Override to fix either way
+     *
+     * @return {@code true} if the state is evaluated inline
+     */
     public boolean isSync() {
+        long threshold = BotConfig.INLINE_STATE_NANOS.as(long.class);
+        return threshold > 0 && this.getEvaluationDeadlineMS() <= 0 && this.cost.isCheap(threshold);
+    }
+
+    /**
+     * Opts this task into dependency tracking: whatever its state supplier
+     * reads from the caches and the {@link com.codelanx.aether.common.cache.Snapshot}
+     * is recorded, and the task is invalidated when (and only when) any of
+     * that changes, rather than by its position in the tree. The supplier must
+     * read game state only through those, or changes to it will go unnoticed
+     *
+     * @return {@code true} if this task's state is dependency tracked
+     */
+    public boolean isDependencyTracked() {
+        return false;
+    }
+
+    /**
+     * How long an asynchronous state evaluation may take before the tree
+     * stops waiting on it. Past the deadline, a {@link #isStaleTolerant()
+     * stale-tolerant} task falls back to its last known state, and any other
+     * task is cancelled and resubmitted, backing off if it keeps missing
+     *
+     * @return The deadline in milliseconds, 0 for none
+     */
+    public long getEvaluationDeadlineMS() {
+        return 0;
+    }
+
+    public boolean isStaleTolerant() {
+        return false;
+    }
+
+    /**
+     * Cache inquiries this task reads, to be loaded ahead of time when the
+     * tree predicts it's up next. Inquiries it's seen reading are prefetched
+     * anyway, this is for those it may not have read yet (e.g. on the first
+     * run of a session)
+     *
+     * @return The queries to prefetch
+     */
+    public Collection<? extends Queryable<?, ?>> getPrefetchQueries() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Called by the tree walk while it waits on this task's state
+     *
+     * @return {@code true} if the deadline passed and the last known state is
+     *         now being used in place of the pending one
+     */
+    @SuppressWarnings("unchecked")
+    public final boolean checkDeadline() {
+        CompletableFuture<T> state = this.state;
+        long deadlineAt = this.deadlineAt;
+        if (state == null || state.isDone() || deadlineAt == 0 || System.nanoTime() < deadlineAt) {
+            return false;
+        }
+        long deadline = this.getEvaluationDeadlineMS();
+        this.breaker.recordTimeout(deadline);
+        Object last = this.lastKnown;
+        if (this.isStaleTolerant() && last != UNKNOWN) {
+            Logging.warning(this.getTaskName() + " missed its " + deadline + "ms deadline, using its last state: " + last);
+            //the slow evaluation keeps running, and still updates the last known state when it finishes
+            CompletableFuture<T> stale = CompletableFuture.completedFuture((T) last);
+            this.observed = stale; //nothing new was seen
+            this.state = stale;
+            return true;
+        }
+        Logging.warning(this.getTaskName() + " missed its " + deadline + "ms deadline, retrying"
+                + (this.breaker.isOpen() ? " in " + this.breaker.getRetryDelayMS() + "ms" : ""));
+        this.state = null;
+        state.cancel(true);
         return false;
     }
 
@@ -85,10 +216,49 @@ public abstract class AetherTask<T> {
     }
 
     private CompletableFuture<T> register() {
+        AsyncBot bot = Aether.getBot();
+        Supplier<T> raw = this.getStateNow();
+        Supplier<T> supplier = () -> {
+            long start = System.nanoTime();
+            try {
+                return raw.get();
+            } finally {
+                this.cost.record(System.nanoTime() - start);
+            }
+        };
+        Supplier<T> timed = supplier;
+        supplier = () -> this.learnReads(timed);
+        if (this.isDependencyTracked()) {
+            DependencyGraph graph = bot.getDependencies();
+            Supplier<T> untracked = supplier;
+            supplier = () -> graph.record(this, untracked);
+        }
+        TaskTracer tracer = bot.getTracer();
+        long submitted = System.nanoTime();
         if (this.isSync()) {
-            return CompletableFuture.completedFuture(this.getStateNow().get());
+            T state = supplier.get();
+            tracer.recordState(this.getToken(), System.nanoTime() - submitted);
+            this.lastKnown = state;
+            return CompletableFuture.completedFuture(state);
         } else {
-            return Scheduler.complete(this.getStateNow());
+            AetherScheduler scheduler = bot.getScheduler();
+            //deadlines are only enforced on asynchronous states, sync ones are done by the time we'd check
+            long deadline = this.getEvaluationDeadlineMS();
+            long delay = deadline > 0 ? this.breaker.getRetryDelayMS() : 0;
+            long deadlineAt = deadline > 0 ? submitted + TimeUnit.MILLISECONDS.toNanos(delay + deadline) : 0;
+            this.deadlineAt = deadlineAt;
+            CompletableFuture<T> back = scheduler.complete(supplier, delay);
+            back.whenComplete((state, ex) -> {
+                long now = System.nanoTime();
+                tracer.recordState(this.getToken(), now - submitted);
+                if (ex == null) {
+                    this.lastKnown = state;
+                    if (deadlineAt != 0 && now <= deadlineAt) {
+                        this.breaker.recordSuccess();
+                    }
+                }
+            });
+            return scheduler.wakeOn(back);
         }
     }
 
@@ -210,8 +380,14 @@ public abstract class AetherTask<T> {
         return raw;
     }
 
+    //tasks carry state, so these are shared per bot rather than across the jvm
     public static <E> AetherTask<E> of(Invalidator invalidator) {
-        return (AetherTask<E>) AetherTask.invalidators.computeIfAbsent(invalidator, i -> AetherTask.of(() -> i));
+        return (AetherTask<E>) Aether.getBot().getInvalidatorTask(invalidator);
+    }
+
+    //todo: discourage / remove (use invalidator return)
+    public static AetherTask<?> nothing() {
+        return Aether.getBot().getNothingTask();
     }
 
     public static <E> AetherTask<E> of(Supplier<Invalidator> task) {
@@ -308,6 +484,134 @@ public abstract class AetherTask<T> {
         return this.children.values().stream();
     }
 
+    //restores what was learned in previous sessions on first use, as the token isn't known during construction
+    private Predictor<T> getPredictor() {
+        if (!this.predictorAttached) {
+            synchronized (this.predictor) {
+                if (!this.predictorAttached) {
+                    AsyncBot bot = Aether.getBot();
+                    if (bot != null && bot.getPredictors() != null) {
+                        bot.getPredictors().attach(this.getToken(), this.predictor);
+                    }
+                    this.predictorAttached = true;
+                }
+            }
+        }
+        return this.predictor;
+    }
+
+    //feeds the resolved state the tree walked through to this task's predictor, once per evaluation
+    public final void observeState() {
+        CompletableFuture<T> state = this.state;
+        if (state == null || state == this.observed || !state.isDone() || state.isCompletedExceptionally()) {
+            return;
+        }
+        this.observed = state;
+        this.getPredictor().observeState(state.getNow(null));
+    }
+
+    //the branch this task's predictor expects it to take next, null unless it's at least this confident
+    public final AetherTask<?> getPredictedChild(double minConfidence) {
+        Predictor<T> predictor = this.getPredictor();
+        if (!predictor.hasPrediction() || predictor.getConfidence() < minConfidence) {
+            return null;
+        }
+        AetherTask<?> back = this.getChild(predictor.predict());
+        return back == null ? this.defaultChild : back;
+    }
+
+    //reports what taking a branch cost, e.g. how long its execution took in milliseconds
+    public final void reportCost(AetherTask<?> child, long costMS) {
+        this.childCosts.record(child, costMS);
+    }
+
+    //the average observed cost of taking a branch, NaN if it was never reported
+    public final double getExpectedCost(AetherTask<?> child) {
+        return this.childCosts.getExpectedCost(child);
+    }
+
+    /**
+     * Runs an evaluation or execution of this task, learning which cache
+     * inquiries it reads if this task is still within its first few runs
+     *
+     * @param work The evaluation or execution
+     * @param <R> The result type
+     * @return The result of the work
+     */
+    public final <R> R learnReads(Supplier<R> work) {
+        if (this.learningRuns.get() >= LEARNED_RUNS || this.learningRuns.incrementAndGet() > LEARNED_RUNS) {
+            return work.get();
+        }
+        return DependencyGraph.collect(work, this.learnedReads);
+    }
+
+    //starts loading (or reloading, when near expiry) the cache inquiries this task declares or was seen reading, without waiting on them
+    @SuppressWarnings("unchecked")
+    public final void prefetch(AsyncBot bot) {
+        this.getPrefetchQueries().forEach(AetherTask::prefetchQuery);
+        for (Dependency dep : this.learnedReads) {
+            if (dep.getSource() instanceof QueryType && !dep.isWholeSource()) {
+                //the key was read from this very cache, so is of its inquiry type
+                GameCache<?, Inquiry> cache = (GameCache<?, Inquiry>) bot.getCache((QueryType) dep.getSource());
+                cache.prefetch((Inquiry) dep.getKey());
+            }
+        }
+    }
+
+    private static <R extends Inquiry> void prefetchQuery(Queryable<?, R> query) {
+        query.getGlobalCache().prefetch(query.toInquiry());
+    }
+
+    //every task this one may branch to, starting with the predicted branch if there is one
+    public final List<AetherTask<?>> getBranches() {
+        List<AetherTask<?>> back = new ArrayList<>(this.children.size() + this.pickyKids.size() + 1);
+        Predictor<T> predictor = this.getPredictor();
+        if (predictor.hasPrediction()) {
+            AetherTask<?> likely = this.getChild(predictor.predict());
+            if (likely != null) {
+                back.add(likely);
+            }
+        }
+        this.forEachBranch(child -> {
+            if (!back.contains(child)) {
+                back.add(child);
+            }
+        });
+        return back;
+    }
+
+    private void forEachBranch(Consumer<AetherTask<?>> action) {
+        Stream.concat(this.getChildren(), this.pickyKids.values().stream()).filter(Objects::nonNull).forEach(action);
+        if (this.defaultChild != null) {
+            action.accept(this.defaultChild);
+        }
+    }
+
+    /**
+     * Flattens the children of this task and every task below it into
+     * {@link DecisionTable}s, so that choosing a child no longer allocates or
+     * streams. Done when the tree is registered with the brain, registering a
+     * child afterwards simply drops that task back to the uncompiled lookup
+     */
+    public final void compile() {
+        Set<AetherTask<?>> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        LinkedList<AetherTask<?>> pending = new LinkedList<>();
+        pending.add(this);
+        while (!pending.isEmpty()) {
+            AetherTask<?> next = pending.poll();
+            if (seen.add(next)) {
+                next.compileSelf();
+                next.forEachBranch(pending::add);
+            }
+        }
+    }
+
+    private void compileSelf() {
+        if (this.table == null) {
+            this.table = new DecisionTable<>(this.children, this.pickyKids);
+        }
+    }
+
     public static <E> AetherTask<E> ofRunemateFailable(Supplier<Boolean> task) {
         return new AetherTask<E>() {
             @Override
@@ -366,6 +670,7 @@ public abstract class AetherTask<T> {
     }
 
     protected void registerDefault(AetherTask<?> child) {
+        this.table = null;
         this.defaultChild = child;
     }
 
@@ -395,10 +700,12 @@ public abstract class AetherTask<T> {
     }
 
     protected void registerInvalidator(Predicate<T> applicable, Function<T, Invalidator> child) {
+        this.table = null;
         this.pickyKids.put(applicable, AetherTask.of(this, child));
     }
 
     protected void register(T key, AetherTask<?> child) {
+        this.table = null;
         this.children.put(new HashedTaskState<>(key), child);
     }
 
@@ -434,6 +741,7 @@ public abstract class AetherTask<T> {
     }
 
     protected void register(Predicate<T> applicable, AetherTask<?> child) {
+        this.table = null;
         this.pickyKids.put(applicable, child);
     }
 
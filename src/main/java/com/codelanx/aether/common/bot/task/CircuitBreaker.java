@@ -0,0 +1,41 @@
+package com.codelanx.aether.common.bot.task;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Backs off a task's state supplier once it repeatedly misses its evaluation
+ * deadline, so a stalled client call isn't resubmitted every tick. The first
+ * miss retries straight away, each one after that doubles the wait
+ */
+public class CircuitBreaker {
+
+    private static final long MAX_BACKOFF_MS = 30000;
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile long openUntilMs;
+
+    public void recordTimeout(long deadlineMs) {
+        int failures = this.failures.incrementAndGet();
+        if (failures > 1) {
+            long backoff = Math.min(MAX_BACKOFF_MS, deadlineMs << Math.min(failures - 2, 16));
+            this.openUntilMs = System.currentTimeMillis() + backoff;
+        }
+    }
+
+    public void recordSuccess() {
+        this.failures.set(0);
+        this.openUntilMs = 0;
+    }
+
+    public boolean isOpen() {
+        return this.getRetryDelayMS() > 0;
+    }
+
+    //how long until the supplier may be submitted again, 0 if it may now
+    public long getRetryDelayMS() {
+        return Math.max(0, this.openUntilMs - System.currentTimeMillis());
+    }
+
+    public int getConsecutiveFailures() {
+        return this.failures.get();
+    }
+}
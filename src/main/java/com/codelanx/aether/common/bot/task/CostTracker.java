@@ -0,0 +1,91 @@
+package com.codelanx.aether.common.bot.task;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Keeps the observed cost of equivalent alternatives, e.g. how long each
+ * branch of a task took or the travel time to each of several banks, so the
+ * cheapest can be picked by history rather than by the order they're listed
+ * in. Costs are averaged leaning on the latest observations, and only the
+ * most recently used options are kept
+ *
+ * @param <K> The type identifying an option
+ */
+public class CostTracker<K> {
+
+    private static final int MAX_OPTIONS = 64;
+    private final Map<K, Cost> costs = new LinkedHashMap<K, Cost>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Cost> eldest) {
+            return this.size() > MAX_OPTIONS;
+        }
+    };
+
+    public synchronized void record(K option, long cost) {
+        this.costs.computeIfAbsent(option, k -> new Cost()).add(cost);
+    }
+
+    //the average observed cost of an option, NaN if it was never observed
+    public synchronized double getExpectedCost(K option) {
+        Cost cost = this.costs.get(option);
+        return cost == null ? Double.NaN : cost.average;
+    }
+
+    /**
+     * Picks the option expected to cost the least. Options never observed
+     * are expected to cost what the observed ones do on average
+     *
+     * @param options The alternatives to choose from
+     * @param key Identifies the option's cost, null keys are never observed
+     * @param <O> The type of option
+     * @return The cheapest option, or null if there are none
+     * @see #cheapest(List, Function, ToDoubleFunction)
+     */
+    public <O> O cheapest(List<? extends O> options, Function<? super O, ? extends K> key) {
+        return this.cheapest(options, key, o -> 1);
+    }
+
+    /**
+     * Picks the option expected to cost the least, where costs are recorded
+     * per unit of some size which differs between choices, e.g. the time per
+     * tile walked to a bank and the distance to it from here. Options never
+     * observed are expected to cost the observed average per unit, or just
+     * their size while nothing has been observed
+     *
+     * @param options The alternatives to choose from
+     * @param key Identifies the option's cost, null keys are never observed
+     * @param size The size of an option as of now, which its cost is scaled by
+     * @param <O> The type of option
+     * @return The cheapest option, or null if there are none
+     */
+    public synchronized <O> O cheapest(List<? extends O> options, Function<? super O, ? extends K> key, ToDoubleFunction<? super O> size) {
+        double unobserved = this.costs.values().stream().mapToDouble(c -> c.average).average().orElse(1);
+        O back = null;
+        double best = Double.POSITIVE_INFINITY;
+        for (O option : options) {
+            K k = key.apply(option);
+            Cost cost = k == null ? null : this.costs.get(k);
+            double expected = (cost == null ? unobserved : cost.average) * size.applyAsDouble(option);
+            if (back == null || expected < best) {
+                back = option;
+                best = expected;
+            }
+        }
+        return back;
+    }
+
+    private static class Cost {
+
+        private double average;
+        private int samples;
+
+        public void add(long cost) {
+            //roughly the last 4 observations
+            this.average = this.samples++ == 0 ? cost : this.average + (cost - this.average) / 4;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.codelanx.aether.common.bot.task;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A flattened copy of an {@link AetherTask}'s registered children, built once
+ * the tree is registered so that picking a child allocates nothing. Boolean
+ * and enum states are dispatched directly, other states fall back to a single
+ * map lookup, and predicate children are checked in registration order
+ *
+ * @param <T> The state type of the owning task
+ */
+final class DecisionTable<T> {
+
+    private static final AetherTask<?>[] NO_TASKS = new AetherTask<?>[0];
+    private final Kind kind;
+    private final AetherTask<?> nullChild;
+    //BOOLEAN: [false, true], ENUM: by ordinal
+    private final AetherTask<?>[] direct;
+    private final Class<?> enumType;
+    private final Map<Object, AetherTask<?>> exact;
+    private final Predicate<T>[] predicates;
+    private final AetherTask<?>[] predicated;
+
+    @SuppressWarnings("unchecked")
+    DecisionTable(Map<HashedTaskState<T>, AetherTask<?>> children, Map<Predicate<T>, AetherTask<?>> pickyKids) {
+        Map<Object, AetherTask<?>> raw = new HashMap<>(children.size());
+        children.forEach((k, v) -> raw.put(k.getState(), v));
+        this.nullChild = raw.remove(null);
+        Class<?> enumType = DecisionTable.commonEnum(raw);
+        if (!raw.isEmpty() && raw.keySet().stream().allMatch(k -> k instanceof Boolean)) {
+            this.kind = Kind.BOOLEAN;
+            this.direct = new AetherTask<?>[] { raw.get(Boolean.FALSE), raw.get(Boolean.TRUE) };
+            this.enumType = null;
+            this.exact = null;
+        } else if (enumType != null) {
+            this.kind = Kind.ENUM;
+            this.direct = new AetherTask<?>[enumType.getEnumConstants().length];
+            raw.forEach((k, v) -> this.direct[((Enum<?>) k).ordinal()] = v);
+            this.enumType = enumType;
+            this.exact = null;
+        } else {
+            this.kind = Kind.EXACT;
+            this.direct = NO_TASKS;
+            this.enumType = null;
+            this.exact = raw;
+        }
+        this.predicates = pickyKids.keySet().toArray(new Predicate[pickyKids.size()]);
+        this.predicated = pickyKids.values().toArray(new AetherTask<?>[pickyKids.size()]);
+    }
+
+    //mirrors AetherTask#getChild(T): an exact match, then the first matching predicate, then the null-keyed child
+    AetherTask<?> lookup(T state) {
+        AetherTask<?> back = null;
+        if (state == null) {
+            back = this.nullChild;
+        } else {
+            switch (this.kind) {
+                case BOOLEAN:
+                    if (state instanceof Boolean) {
+                        back = this.direct[(Boolean) state ? 1 : 0];
+                    }
+                    break;
+                case ENUM:
+                    if (state instanceof Enum && ((Enum<?>) state).getDeclaringClass() == this.enumType) {
+                        back = this.direct[((Enum<?>) state).ordinal()];
+                    }
+                    break;
+                default:
+                    back = this.exact.get(state);
+                    break;
+            }
+        }
+        if (back != null) {
+            return back;
+        }
+        for (int i = 0; i < this.predicates.length; i++) {
+            if (this.predicates[i].test(state)) {
+                return this.predicated[i];
+            }
+        }
+        return this.nullChild;
+    }
+
+    //the enum class shared by every key, or null if they aren't all of one enum
+    private static Class<?> commonEnum(Map<Object, ?> keys) {
+        Class<?> back = null;
+        for (Object key : keys.keySet()) {
+            if (!(key instanceof Enum)) {
+                return null;
+            }
+            Class<?> type = ((Enum<?>) key).getDeclaringClass();
+            if (back != null && back != type) {
+                return null;
+            }
+            back = type;
+        }
+        return back;
+    }
+
+    private enum Kind {
+        BOOLEAN,
+        ENUM,
+        EXACT,
+    }
+}
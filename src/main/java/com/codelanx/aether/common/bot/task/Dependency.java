@@ -0,0 +1,57 @@
+package com.codelanx.aether.common.bot.task;
+
+import java.util.Objects;
+
+/**
+ * A piece of game state a task's evaluation read, e.g. one inquiry of a
+ * cache. A dependency without a key stands for its whole source, and a change
+ * to it affects every key of that source
+ */
+public final class Dependency {
+
+    private final Object source;
+    private final Object key;
+
+    private Dependency(Object source, Object key) {
+        this.source = source;
+        this.key = key;
+    }
+
+    public static Dependency of(Object source) {
+        return new Dependency(source, null);
+    }
+
+    public static Dependency of(Object source, Object key) {
+        return new Dependency(Objects.requireNonNull(source), key);
+    }
+
+    public Object getSource() {
+        return this.source;
+    }
+
+    public Object getKey() {
+        return this.key;
+    }
+
+    public boolean isWholeSource() {
+        return this.key == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Dependency)) return false;
+        Dependency that = (Dependency) o;
+        return this.source.equals(that.source) && Objects.equals(this.key, that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.source.hashCode() + Objects.hashCode(this.key);
+    }
+
+    @Override
+    public String toString() {
+        return "Dependency{" + this.source + (this.key == null ? "" : ":" + this.key) + "}";
+    }
+}
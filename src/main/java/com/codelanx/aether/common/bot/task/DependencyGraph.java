@@ -0,0 +1,165 @@
+package com.codelanx.aether.common.bot.task;
+
+import com.codelanx.aether.common.bot.Aether;
+import com.codelanx.aether.common.bot.AsyncBot;
+import com.codelanx.commons.util.OptimisticLock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Tracks which {@link Dependency dependencies} each tracked task's state was
+ * computed from, so that a change to one invalidates only the tasks which read
+ * it. Reads are recorded per thread while a task's state supplier runs, and
+ * reported by the caches and {@link com.codelanx.aether.common.cache.Snapshot}
+ *
+ * @see AetherTask#isDependencyTracked()
+ */
+public class DependencyGraph {
+
+    private static final ThreadLocal<Set<Dependency>> RECORDING = new ThreadLocal<>();
+    private final Map<Dependency, Set<AetherTask<?>>> dependents = new HashMap<>();
+    private final Map<AetherTask<?>, Set<Dependency>> reads = new IdentityHashMap<>();
+    private final OptimisticLock lock = new OptimisticLock();
+    private final Runnable onInvalidate;
+
+    public DependencyGraph(Runnable onInvalidate) {
+        this.onInvalidate = onInvalidate;
+    }
+
+    // -=- reporting
+
+    //cheap when nothing is being recorded on this thread, so it's fine to call on every read
+    public static void read(Object source, Object key) {
+        Set<Dependency> recording = RECORDING.get();
+        if (recording != null) {
+            recording.add(Dependency.of(source, key));
+        }
+    }
+
+    //reports a change to the current bot's graph, if there is one
+    public static void changed(Object source, Object key) {
+        AsyncBot bot = Aether.getBot();
+        if (bot != null) {
+            bot.getDependencies().changed(Dependency.of(source, key));
+        }
+    }
+
+    /**
+     * Runs some work, adding everything it reads to the given set. Recordings
+     * nest, so the reads are also reported to whatever is recording around it
+     *
+     * @param work The work to run
+     * @param into Where to add the reads
+     * @param <T> The result type
+     * @return The result of the work
+     */
+    public static <T> T collect(Supplier<T> work, Set<Dependency> into) {
+        Set<Dependency> outer = RECORDING.get();
+        Set<Dependency> deps = new HashSet<>();
+        RECORDING.set(deps);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) {
+                RECORDING.remove();
+            } else {
+                RECORDING.set(outer);
+                outer.addAll(deps);
+            }
+            into.addAll(deps);
+        }
+    }
+
+    // -=- tracking
+
+    /**
+     * Runs a task's state evaluation, recording everything it reads as that
+     * task's dependencies (replacing whatever it depended on before)
+     *
+     * @param task The task being evaluated
+     * @param evaluation The task's state supplier
+     * @param <T> The state type
+     * @return The evaluated state
+     */
+    public <T> T record(AetherTask<?> task, Supplier<T> evaluation) {
+        Set<Dependency> deps = new HashSet<>();
+        try {
+            return DependencyGraph.collect(evaluation, deps);
+        } finally {
+            this.lock.write(() -> {
+                this.untrack(task);
+                if (!deps.isEmpty()) {
+                    this.reads.put(task, deps);
+                    deps.forEach(d -> this.dependents.computeIfAbsent(d, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(task));
+                }
+            });
+        }
+    }
+
+    //true if the task's current state is covered by recorded dependencies
+    public boolean isTracking(AetherTask<?> task) {
+        return this.lock.read(() -> this.reads.containsKey(task));
+    }
+
+    public boolean hasDependents(Dependency dependency) {
+        return this.lock.read(() -> this.dependents.containsKey(dependency));
+    }
+
+    /**
+     * Invalidates every task which read the changed dependency. A change to a
+     * whole source reaches every key of it, and a change to a single key also
+     * reaches tasks which read the whole source
+     *
+     * @param dependency The {@link Dependency} which changed
+     */
+    public void changed(Dependency dependency) {
+        List<AetherTask<?>> affected = this.lock.write(() -> {
+            List<AetherTask<?>> back = new ArrayList<>();
+            if (dependency.isWholeSource()) {
+                this.dependents.forEach((dep, tasks) -> {
+                    if (dep.getSource().equals(dependency.getSource())) {
+                        back.addAll(tasks);
+                    }
+                });
+            } else {
+                back.addAll(this.dependents.getOrDefault(dependency, Collections.emptySet()));
+                back.addAll(this.dependents.getOrDefault(Dependency.of(dependency.getSource()), Collections.emptySet()));
+            }
+            back.forEach(this::untrack);
+            return back;
+        });
+        if (!affected.isEmpty()) {
+            affected.forEach(AetherTask::invalidate);
+            this.onInvalidate.run();
+        }
+    }
+
+    public void clear() {
+        this.lock.write(() -> {
+            this.dependents.clear();
+            this.reads.clear();
+        });
+    }
+
+    //must hold the write lock
+    private void untrack(AetherTask<?> task) {
+        Set<Dependency> old = this.reads.remove(task);
+        if (old == null) {
+            return;
+        }
+        for (Dependency dep : old) {
+            Set<AetherTask<?>> tasks = this.dependents.get(dep);
+            if (tasks != null && tasks.remove(task) && tasks.isEmpty()) {
+                this.dependents.remove(dep);
+            }
+        }
+    }
+}
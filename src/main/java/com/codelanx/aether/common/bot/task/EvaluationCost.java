@@ -0,0 +1,44 @@
+package com.codelanx.aether.common.bot.task;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A moving average of how long a task's state supplier takes to run, used to
+ * decide whether it's cheap enough to be evaluated inline on the bot thread
+ * rather than handed to the pool. A supplier has to stay well over the
+ * threshold to be moved back, so one slow run doesn't flip it back and forth
+ */
+final class EvaluationCost {
+
+    //runs measured before a supplier may be considered cheap
+    private static final int WARMUP = 8;
+    private final AtomicInteger samples = new AtomicInteger();
+    private volatile long averageNanos;
+    private volatile boolean inline;
+
+    void record(long nanos) {
+        if (this.samples.get() < WARMUP) {
+            this.samples.incrementAndGet();
+            this.averageNanos = this.averageNanos == 0 ? nanos : (this.averageNanos + nanos) >> 1;
+        } else {
+            //roughly the last 8 runs
+            this.averageNanos += (nanos - this.averageNanos) >> 3;
+        }
+    }
+
+    boolean isCheap(long thresholdNanos) {
+        long avg = this.averageNanos;
+        if (this.inline) {
+            if (avg > thresholdNanos << 2) {
+                this.inline = false;
+            }
+        } else if (this.samples.get() >= WARMUP && avg <= thresholdNanos) {
+            this.inline = true;
+        }
+        return this.inline;
+    }
+
+    long getAverageNanos() {
+        return this.averageNanos;
+    }
+}
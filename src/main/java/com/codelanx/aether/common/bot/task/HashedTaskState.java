@@ -12,6 +12,10 @@ public class HashedTaskState<E> {
         this.task = task;
     }
 
+    E getState() {
+        return this.task;
+    }
+
     @Override
     public int hashCode() {
         if (this.task == null) {
@@ -1,424 +1,135 @@
 package com.codelanx.aether.common.bot.task.predict;
 
-import com.codelanx.aether.common.bot.Aether;
-import com.codelanx.commons.util.ref.Box;
-import com.runemate.game.api.script.framework.AbstractBot;
-
-import java.io.File;
-import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Consumer;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
 
 /**
  * Created by roKgue on 8/17/2017.
+ *
+ * Predicts a task's next state from the states it was most recently seen in.
+ * Observations are kept in a fixed-size window, and for every period up to
+ * {@link #MAX_PERIOD} a counter tracks how many observations in a row matched
+ * the one that period before them. A repeating loop (e.g. cook, cook, bank)
+ * is therefore recognised in O({@link #MAX_PERIOD}) per observation, and
+ * predicting is a lookup. Memory is fixed however long the bot runs
  */
-public class BranchPredictor<E> {
-    
-    private static boolean DEBUG = true;
-    private static final boolean FINER_DEBUG = false;
-    private final List<Object> mixedList = new ArrayList<>();
-    private final Map<Integer, E> hashCodeToState = new HashMap<>();
-    private final AtomicInteger cost = new AtomicInteger();
-    private final AtomicInteger costRadix = new AtomicInteger();
-
-    public static void main(String... args) {
-        testStrings();
-    }
-
-    private static void testStrings() {
-        List<String> tests = Arrays.asList("aaabaaabaaabaaab", "abcdcbabcdcbabcdcbabcdcbabcdcbabcdcb", "abbcabbcabbc", "aaabaaababbcabbcabbca", "aaabaaabcbcabbcabbcabbca");
-        tests.forEach(test -> {
-            char[] c = test.toCharArray();
-            System.out.println("Char array: " + Arrays.toString(c));
-            BranchPredictor<Character> predictor = new BranchPredictor<>();
-            for (int i = 0; i < c.length; i++) {
-                System.out.println("printing insert (" + i + "): " + c[i]);
-                predictor.observeState(c[i]);
-                System.out.println("printing predict (" + i + ")");
-                System.out.println("Next guess: " + predictor.predict());
-                System.out.println();
-                Aether.getBot().getMetaData().getName();
-            }
-        });
-    }
-    
-    public void observeState(E state) {
-        this.observeState(state, -1);
-    }
-
-    public void observeState(E state, int cost) {
-        //TODO: State insertion
-        this.hashCodeToState.putIfAbsent(state.hashCode(), state);
-        if (cost >= 0) {
-            int radix = this.costRadix.getAndIncrement();
-            this.cost.getAndUpdate(i -> {
-                return ((i * radix) + cost) / (radix + 1);
-            });
-        }
-        this.bakeList(state);
-    }
-    
-    private void bakeList(E state) {
-        this.bake(this.mixedList, state.hashCode(), false);
-    }
-
-    private void bake(List<Object> bake, int hstate, boolean copy) {
-        /*
-
-        we need to operate on a grammar, to simplify pattern making:
-
-                a -> a
-                ab -> ab
-                aa -> {ax2}
-                {ax(n)}a -> {ax(n+1)}
-                {ax(n)}b{ax(n)}b -> {{ax(n)}bx2}
-
-            example using: abcdcbabcdcb
-                b		        -> b                #a: []       b: b
-                cb		        -> cb			    #a: c		b: b
-                dcb		        -> dcb			    #a: d		b: cb
-                cdcb		    -> cdcb			    #a: cd		b: cb
-                bcdcb		    -> bcdcb		    #a: bc		b: dcb
-                abcdcb		    -> abcdcb		    #a: abc		b: dcb
-                babcdcb		    -> babcdcb		    #a: bab		b: cdcb
-                cbabcdcb	    -> cbabcdcb		    #a: cbab	b: cdcb
-                dcbabcdcb	    -> dcbabcdcb		#a: dcba	b: bcdcb
-                cdcbabcdcb	    -> cdcbabcdcb		#a: cdcba	b: bcdcb
-                bcdcbabcdcb	    -> bcdcbabcdcb		#a: bcdcb	b: abcdcb
-                abcdcbabcdcb	-> {abcdcbx2}		#a: abcdcb	b: abcdcb	# MATCH FOUND
-                {abcdcbx2}abcdcb
-         */
-        if (bake.isEmpty()) {
-            bake.add(hstate);
-            return;
+public class BranchPredictor<E> implements Predictor<E> {
+
+    private static final int WINDOW = 64; //power of two, greater than MAX_PERIOD
+    private static final int MASK = WINDOW - 1;
+    private static final int MAX_PERIOD = 16;
+    //runs stop counting here, it's long past making a difference to the confidence
+    private static final int MAX_RUN = 1 << 20;
+    private final int[] window = new int[WINDOW];
+    //runs[p]: consecutive observations equal to the one p before them
+    private final int[] runs = new int[MAX_PERIOD + 1];
+    private final StateDictionary<E> states = new StateDictionary<>();
+    private long observed;
+    private int period; //the best period so far, 0 if nothing repeats
+
+    @Override
+    public synchronized void observeState(E state) {
+        if (this.states.size() >= WINDOW << 1) {
+            this.forgetUnseen();
         }
-        LinkedList<Object> a = new LinkedList<>();
-        LinkedList<Object> b = new LinkedList<>();
-        Consumer<Integer> trimmer = w -> {
-            for (;w < bake.size();) {
-                bake.remove((int) w);
-            }
-        };
-        bake.add(hstate);
-        Consumer<Object> remakeToPattern = p -> {
-            a.clear();
-            b.clear();
-            b.add(p);
-        };
-        for (int i = bake.size() - 1; i >= 0; i--) {
-            String format;
-            String before;
-            String result = null;
-            String sa;
-            String sb;
-            Object o = bake.get(i);
-            if (true) {
-                format = "%-50s -> %-50s #a: %-25s b: %-25s";
-                before = objectToString(this, o) + listToString(this, a) + listToString(this, b);
-            }
-            if (a.isEmpty() && b.isEmpty()) {
-                b.push(o);
-                if (DEBUG) {
-                    //System.out.println("initial value");
-                    System.out.println(String.format(format, before, before, "[]", listToString(this, b)));
-                }
+        int id = this.states.intern(state);
+        //the period which has held the longest explains the most history, the shortest such one wins ties
+        int best = 0;
+        for (int p = 1; p <= MAX_PERIOD; p++) {
+            if (p > this.observed || this.at(p) != id) {
+                this.runs[p] = 0;
                 continue;
             }
-            if (o instanceof Pattern) {
-                //TODO:
-                //this can likely be simplified further
-                //instead of checking whole list contents, we can probably check the most recent literal
-                //to pattern literals, and combine only those
-                Pattern op = (Pattern) o;
-                if (true) {
-                    sa = op.toString();
-                }
-                List<Object> copyCheck = new ArrayList<>(a.size() + b.size());
-                copyCheck.addAll(a);
-                copyCheck.addAll(b);
-                if (op.getObjects().equals(copyCheck)) {
-                    trimmer.accept(i);
-                    if (copy) {
-                        op = new Pattern(this, op.getObjects(), op.getAmount());
-                    }
-                    op.increment();
-                    remakeToPattern.accept(op);
-                    bake.add(op);
-                    if (DEBUG) {
-                        result = op.toString();
-                        if (FINER_DEBUG) {
-                            System.out.println("pattern increment");
-                        }
-                        System.out.println(String.format(format, before, result, sa, listToString(this, copyCheck)));
-                    }
-                    continue;
-                }
-            }
-            if (a.size() == b.size()) {
-                //move from a->b
-                if (a.size() > 0) {
-                    b.push(a.pollLast());
-                }
-            }
-            //add to a
-            a.push(o);
-            if (true) {
-                sa = listToString(this, a);
-                sb = listToString(this, b);
-            }
-            if (a.equals(b)) {
-                //TODO: Determine if this is a pre-loop or post-loop op
-                //we found a pattern match
-                trimmer.accept(i);
-                Pattern p = new Pattern(this, a);
-                if (DEBUG) {
-                    if (FINER_DEBUG) {
-                        System.out.println("pattern make");
-                    }
-                    result = p.toString();
-                }
-                remakeToPattern.accept(p);
-                bake.add(p);
+            this.runs[p] = Math.min(this.runs[p] + 1, MAX_RUN);
+            if (this.runs[p] > this.runs[best]) {
+                best = p;
             }
-            if (DEBUG) {
-                if (result == null) {
-                    if (FINER_DEBUG) {
-                        System.out.println("no pattern");
-                    }
-                    result = before;
-                }
-                System.out.println(String.format(format, before, result, sa, sb));
-            }
-        }
-        if (DEBUG && FINER_DEBUG) {
-            System.out.println("End list: " + listToString(this, bake));
         }
+        this.window[(int) (this.observed++ & MASK)] = id;
+        this.period = best;
     }
 
-    private List<Integer> getTail(List<Object> raw) {
-        if (raw.isEmpty()) {
-            return Collections.emptyList();
-        }
-        if (raw.get(raw.size() - 1) instanceof Pattern) {
-            return Collections.emptyList();
-        }
-        //haha screw type safety
-        for (int i = raw.size() - 1; i >= 0; i--) {
-            if (raw.get(i) instanceof Pattern) {
-                return (List<Integer>) (List<?>) raw.subList(i + 1, raw.size());
-            }
-        }
-        return (List<Integer>) (List<?>) raw;
+    //whether anything repeats, e.g. if #predict returning null is a guess of a null state
+    @Override
+    public synchronized boolean hasPrediction() {
+        return this.period > 0 && this.states.isBound(this.at(this.period));
     }
-            
-            
-            
-         /*   if (o.getClass() == Pattern.class) {
-        Pattern p = (Pattern) o;
-        if (p.matches(state)) {
-            //We've got a match to a prev pattern, increment
-            if (patternMismatch.isEmpty()) {
-                p.increment();
-            } else {
-                //we've got a match within our pattern mismatch
-                if (patternMismatchMatcher.isEmpty()) {
-                    patternMismatchMatcher.addAll(patternMismatch);
-                    patternMismatch.clear();
-                    patternMismatch.add(p);
-                } else {
-                    //compare our two previous mismatches
-                    if (patternMismatchMatcher.equals(patternMismatch)) {
-                        //we've got a pattern within a pattern
-                        //TODO: Continue searching for pattern
-                        this.mixedList.add(new Pattern(patternMismatch));
 
-                    }
-                }
-            }
-            p.increment();
-            return;
-        } else {
-            //TODO: Backwards search for pattern within patterns
-            //patternception
-            //like dicaprio
-            //fuck idk
-            patternMismatch.add(o);
+    //the state one period back from the next observation, null if nothing repeats
+    @Override
+    public synchronized E predict() {
+        return this.period <= 0 ? null : this.states.stateOf(this.at(this.period));
+    }
+
+    @Override
+    public synchronized void write(DataOutput out) throws IOException {
+        int size = (int) Math.min(WINDOW, this.observed);
+        out.writeInt(size);
+        for (int i = size; i > 0; i--) {
+            out.writeInt(this.states.stableKeyOf(this.at(i))); //oldest first
         }
-    } else {
-        int hashcode = (int) o;
-        if (hashcode == hstate) {
-            //we've got a local pattern
-            this.mixedList.set(i, new Pattern(hstate, 2));
-        } else {
-            patternMismatch.add(o);
+        for (int p = 1; p <= MAX_PERIOD; p++) {
+            out.writeInt(this.runs[p]);
         }
-    }*/
-    
-    public E predict() {
-        return this.hashCodeToState.get(this.predictCode());
+        out.writeInt(this.period);
     }
-    
-    /*
-
-    Prediction will follow a reversal of the grammar
-
-    before:
-                a -> a
-                ab -> ab
-                aa -> {ax2}
-                {ax(n)}a -> {ax(n+1)}
-                {ax(n)}b{ax(n)}b -> {{ax(n)}bx2}
-
-
 
-
-
-     */
-    private int predictCode() {
-        //pre-check
-        if (this.mixedList.size() <= 0) {
-            return 0;
-        } else if (this.mixedList.size() == 1) {
-            Object o = this.mixedList.get(0);
-            if (o instanceof Pattern) {
-                Pattern op = (Pattern) o;
-                return 0;//return op.getHashCodeAt(0); //TODO: code cleanup
-            } else {
-                return (int) o;
-            }
+    @Override
+    public synchronized void read(ByteBuffer in) {
+        int size = in.getInt();
+        if (size < 0 || size > WINDOW) {
+            throw new IllegalArgumentException("Invalid window size: " + size);
         }
-        List<Integer> tail = this.getTail(this.mixedList);
-        if (tail.size() == this.mixedList.size()) {
-            if (tail.size() <= 2) {
-                //we'll make a once-off assumption that the third state will be a repeat of the last state
-                //this is for edge-cases in binary state predictions (e.g. boolean states)
-                //similar adaptions will likely be made for ternary state predictions
-                return (int) tail.get(1);
-            } else {
-                return 0; //no available guess - no pattern seen yet
-            }
-        } else if (this.mixedList.size() - tail.size() == 1) {
-            Pattern p = (Pattern) this.mixedList.get(0);
-            return 0;//p.search(tail); //TODO: search recursively?
+        int[] window = new int[size];
+        for (int i = 0; i < size; i++) {
+            window[i] = in.getInt();
         }
-        //mixed list is > 2
-        //iteration time
-
-        //TODO:
-        //DONE:
-
-        //==predicting next shortest result
-        //we're going to start basic, this won't be the most optimized but we can improve upon it later
-        List<Object> base = this.mixedList;
-        //O(n)
-        Box<Integer> minVal = new Box<>();
-        AtomicInteger min = new AtomicInteger(Integer.MAX_VALUE);
-        boolean old = DEBUG;
-        DEBUG = false;
-        this.hashCodeToState.keySet().forEach(state -> {
-            List<Object> tempBake = new ArrayList<>(base);
-            this.bake(tempBake, state, true);
-            System.out.println("Prediction '" + objectToString(this, state) + "': " + listToString(this, tempBake));
-            if (tempBake.size() < min.get()) {
-                min.set(tempBake.size());
-                minVal.value = state;
-            }
-        });
-        if (minVal.value == null) {
-            //no prediction
-            return 0;
+        int[] runs = new int[MAX_PERIOD + 1];
+        for (int p = 1; p <= MAX_PERIOD; p++) {
+            runs[p] = in.getInt();
         }
-        DEBUG = old;
-
-        //here be old code
-        if (false) {
-
-            Collection<? extends E> knownValues = this.hashCodeToState.values();
-            Map<E, Integer> count = knownValues.stream().collect(Collectors.toMap(Function.identity(), state -> {
-                List<Object> tempBake = new ArrayList<>(base);
-                this.bake(tempBake, state.hashCode(), true);
-                return tempBake.size();
-            }));
-
-
-            /*
-            List<Object> tail = this.getTail(this.mixedList);
-            //our tail is our powerful ally, as we use it to binary search the patterns:
-            List<Object> other = this.mixedList.subList(0, this.mixedList.size() - tail.size());
-            LinkedHashMap<Pattern, Integer> pairs = other.stream().filter(o -> o.getClass() == Pattern.class).map(o -> (Pattern) o)
-                    .sorted(Comparator.comparing(Pattern::getAmount))
-                    .collect(Collectors.toMap(Function.identity(), p -> p.search(tail), (o1, o2) -> o1, LinkedHashMap::new));
-            Pattern p = pairs.entrySet().stream()
-                    .filter(ent -> ent.getValue() > 0)
-                    .findAny().map(Entry::getKey).orElse(null);
-            if (p == null) {
-                //no pattern match
-                //...so, no prediction?
-            } else {
-
-            }
-            if (this.mixedList.size() == 1) {
-                Object o = this.mixedList.get(0);
-                DEBUG = true;
-                return this.mixedList.get(0).hashCode();
-            }
-            {
-                /*
-                //if we reach a state where we need to determine by trying available states for shortest pattern
-                Collection<? extends E> knownValues = this.hashCodeToState.values();
-                List<Object> base = this.mixedList;
-                //O(n)
-                Box<E> minVal = new Box<>();
-                AtomicInteger min = new AtomicInteger(Integer.MAX_VALUE);
-                knownValues.forEach(state -> {
-                    List<Object> tempBake = new ArrayList<>(base);
-                    this.bake(tempBake, state.hashCode());
-                    if (tempBake.size() < min.get()) {
-                        min.set(tempBake.size());
-                        minVal.value = state;
-                    }
-                });
-                Map<E, Integer> count = knownValues.stream().collect(Collectors.toMap(Function.identity(), state -> {
-                    List<Object> tempBake = new ArrayList<>(base);
-                    this.bake(tempBake, state.hashCode());
-                    return tempBake.size();
-                }));
-                //find minimum value
-            }*/
-            //TODO
+        int period = in.getInt();
+        //states are matched back up to the persisted keys as they're observed
+        this.states.clear();
+        for (int i = 0; i < size; i++) {
+            this.window[i] = this.states.reserve(window[i]);
         }
-        return minVal.value;
-        //return 0;
-    }
-    
-    private void casualInsert(E state) {
+        System.arraycopy(runs, 0, this.runs, 0, runs.length);
+        this.observed = size;
+        this.period = period < 0 || period > MAX_PERIOD ? 0 : period;
     }
 
-    E reverseMap(int hashcode) {
-        return this.hashCodeToState.get(hashcode);
-    }
-    
-    static String listToString(Function<Integer, Object> mapper, List<Object> patternObjects) {
-        return patternObjects.stream().map(o -> BranchPredictor.objectToString(mapper, o)).collect(Collectors.joining());
+    /**
+     * How much the current prediction can be trusted, growing towards 1 the
+     * more times in a row the pattern it's based on has held
+     *
+     * @return The confidence within [0, 1), 0 if there is no prediction
+     */
+    @Override
+    public synchronized double getConfidence() {
+        return this.period <= 0 ? 0 : BranchPredictor.confidence(this.runs[this.period], this.period);
     }
 
-    static String listToString(BranchPredictor<?> src, List<Object> patternObjects) {
-        return listToString(src::reverseMap, patternObjects);
+    //the id observed `back` observations before the next one
+    private int at(int back) {
+        return this.window[(int) ((this.observed - back) & MASK)];
     }
 
-    static String objectToString(BranchPredictor<?> src, Object o) {
-        return objectToString(src::reverseMap, o);
+    //a run of r observations repeating a period of p is r / p full repeats of it
+    private static double confidence(int run, int period) {
+        return run / (double) (run + period);
     }
 
-    static String objectToString(Function<Integer, Object> mapper, Object o) {
-        if (o instanceof Number) {
-            Object back = mapper.apply((int) o);
-            return back == null ? o.toString() : back.toString();
-        } else {
-            return o.toString();
+    //releases states which have left the window, so states that are never seen again don't pile up
+    private void forgetUnseen() {
+        BitSet seen = new BitSet();
+        long from = Math.max(0, this.observed - WINDOW);
+        for (long i = from; i < this.observed; i++) {
+            seen.set(this.window[(int) (i & MASK)]);
         }
+        this.states.retain(seen);
     }
 
 }
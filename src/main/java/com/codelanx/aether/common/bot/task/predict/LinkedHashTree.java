@@ -1,119 +1,319 @@
 package com.codelanx.aether.common.bot.task.predict;
 
 
-import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
 
 /**
- * this is a trie data structure with a linked backing, to support peeking
- * recent patterns and doing endpoint searches
- * 
- * This is also... not a trie. It has a tail.
- * 
- * Further explained the "tail" represents unlinked state patterns
+ * A variable-order context trie (in the style of PPM). Each node stands for a
+ * context, the states most recently observed (most recent first going down
+ * the trie), and counts which state followed that context. A prediction comes
+ * from the longest context matching the latest observations, so a loop such
+ * as cook, cook, cook, bank is told apart by how many cooks came before.
+ *
+ * Observing costs O({@link #MAX_ORDER}). Once the trie grows past its node
+ * budget every count is halved and nodes left empty are dropped, which both
+ * bounds memory and lets old habits fade
  */
-public class LinkedHashTree<E> {
-    
-    private final TrieNode root = new TrieNode(null, 0); //null == empty literal, trie used for heuristics
-    private final List<Pattern> patterns = new ArrayList<>(); //tracks patterns for quick matching
-    private final List<Integer> tail = new LinkedList<>(); //we track potentially repeating patterns in a "tail"
-    private final Map<Integer, E> converter = new HashMap<>(); //mapping our internal hashes back to states
-    
-    public LinkedHashTree() {
-        
+public class LinkedHashTree<E> implements Predictor<E> {
+
+    //the longest context remembered
+    private static final int MAX_ORDER = 4;
+    private static final int NODE_BUDGET = 512;
+    private TrieNode root = new TrieNode(); //the empty context
+    private final int[] history = new int[MAX_ORDER]; //most recent at (observed - 1) % MAX_ORDER
+    private final StateDictionary<E> states = new StateDictionary<>();
+    private long observed;
+    private int nodes = 1;
+    private TrieNode context; //the node the current prediction came from, null if none
+    private int prediction;
+
+    @Override
+    public synchronized void observeState(E state) {
+        int id = this.states.intern(state);
+        //every context ending at the latest observation saw this state next
+        TrieNode node = this.root;
+        node.observe(id);
+        int order = (int) Math.min(MAX_ORDER, this.observed);
+        for (int k = 1; k <= order; k++) {
+            int prev = this.back(k);
+            TrieNode child = node.child(prev);
+            if (child == null) {
+                child = node.addChild(prev);
+                this.nodes++;
+            }
+            node = child;
+            node.observe(id);
+        }
+        this.history[(int) (this.observed++ % MAX_ORDER)] = id;
+        if (this.nodes > NODE_BUDGET) {
+            this.evict();
+        }
+        this.repredict();
+    }
+
+    @Override
+    public synchronized boolean hasPrediction() {
+        return this.context != null && this.states.isBound(this.prediction);
+    }
+
+    @Override
+    public synchronized E predict() {
+        return this.context == null ? null : this.states.stateOf(this.prediction);
+    }
+
+    //the share of the matched context followed by the predicted state, less an escape for unseen ones
+    @Override
+    public synchronized double getConfidence() {
+        if (this.context == null) {
+            return 0;
+        }
+        int top = this.context.count(this.prediction);
+        return top / (double) (this.context.total + this.context.nextSize);
+    }
+
+    @Override
+    public synchronized void write(DataOutput out) throws IOException {
+        int order = (int) Math.min(MAX_ORDER, this.observed);
+        out.writeInt(order);
+        for (int k = order; k > 0; k--) {
+            out.writeInt(this.states.stableKeyOf(this.back(k))); //oldest first
+        }
+        this.root.write(out, this.states);
+    }
+
+    @Override
+    public synchronized void read(ByteBuffer in) {
+        int order = in.getInt();
+        if (order < 0 || order > MAX_ORDER) {
+            throw new IllegalArgumentException("Invalid context length: " + order);
+        }
+        int[] history = new int[order];
+        for (int i = 0; i < order; i++) {
+            history[i] = in.getInt();
+        }
+        //states are matched back up to the persisted keys as they're observed
+        StateDictionary<E> states = new StateDictionary<>();
+        int[] nodes = new int[1];
+        TrieNode root = TrieNode.read(in, states, nodes, 0);
+        this.states.clear();
+        for (int i = 0; i < order; i++) {
+            this.history[i] = this.states.reserve(history[i]);
+        }
+        //the trie was read against its own dictionary, so it's remapped into ours
+        root.remap(states, this.states);
+        this.observed = order;
+        this.root = root;
+        this.nodes = nodes[0];
+        this.repredict();
     }
-    
-    public void observe(E state) {
-        int hash = state.hashCode();
-        this.converter.putIfAbsent(hash, state);
-        this.root.observe(hash);
-        if (this.patterns.isEmpty()) {
-            this.patterns.add(new Pattern(this, hash, 1));
-            return;
-        }
-        if (this.tail.isEmpty() && this.patterns.size() == 1) {
-        }
-        
-        this.tail.add(hash);
-        //TODO: get tail
-        this.root.observe(hash);
-        //TODO: baking and shit
+
+    public synchronized int getNodeCount() {
+        return this.nodes;
+    }
+
+    //the id observed k observations ago, 1 being the latest
+    private int back(int k) {
+        return this.history[(int) ((this.observed - k) % MAX_ORDER)];
     }
-    
-    public E reverseMap(int hashcode) {
-        return this.converter.get(hashcode);
+
+    //finds the longest context matching the latest observations that has been followed by anything
+    private void repredict() {
+        TrieNode node = this.root;
+        TrieNode best = node.total > 0 ? node : null;
+        int order = (int) Math.min(MAX_ORDER, this.observed);
+        for (int k = 1; k <= order; k++) {
+            node = node.child(this.back(k));
+            if (node == null) {
+                break;
+            }
+            if (node.total > 0) {
+                best = node;
+            }
+        }
+        this.context = best;
+        if (best != null) {
+            this.prediction = best.mostLikely();
+        }
     }
-    
-    private void grammatize() {}
-    
-    private boolean trieCoverage(List<Integer> tail) {
-        return this.root.isCovered(this.tail);
+
+    //halves every count until the trie fits comfortably within its budget again
+    private void evict() {
+        while (this.nodes > NODE_BUDGET * 3 / 4) {
+            this.nodes = 1 + this.root.age();
+        }
+        //release states that nothing can predict or match any more
+        BitSet live = new BitSet();
+        this.root.collect(live);
+        for (int i = 0; i < Math.min(MAX_ORDER, this.observed); i++) {
+            live.set(this.history[i]);
+        }
+        this.states.retain(live);
     }
-    
-    /*
-    
-        a            -> a
-        ab            -> ab
-        aa             -> {ax2}
-        {ax(n)}a        -> {ax(n+1)}
-        {ax(n)}b{ax(n)}b    -> {{ax(n)}bx2}
-
-        special grammar rules:
-        ε            -> {εx1}
-        {ax1}b             -> {abx1}
-        {ax1}a            -> {ax2}
-        {abx1}a         -> {abx1}a
-     */
+
+    //ids are kept in small parallel arrays, as most contexts are followed by only a few states
     private static class TrieNode {
-        
-        private final Map<Integer, TrieNode> children = new HashMap<>();
-        private final int hashcode;
-        private AtomicInteger weight = new AtomicInteger(0);
-        
-        public TrieNode(Integer hashcode) {
-            this(hashcode, 1);
-        }
-        
-        public TrieNode(Integer hashcode, int initalAmount) {
-            this.hashcode = hashcode;
-            this.weight.set(initalAmount);
-        }
-        
-        //TODO: use traversal, not mutation
-        
-        public void observe(int tail) {
-            this.observe0(tail).weight.incrementAndGet(); //TODO: verify this increments correctly
-        }
-        
-        public void observe(List<Integer> tail) {
-            this.observe0(new LinkedList<>(tail));
-        }
-        
-        private TrieNode observe0(int tail) {
-            return this.children.computeIfAbsent(tail, TrieNode::new);
-        }
-        
-        private void observe0(List<Integer> tail) {
-            if (tail.isEmpty()) {
-                this.weight.incrementAndGet();
-                return;
-            }
-            int state = tail.remove(0);
-            this.observe0(tail.remove(0)).observe0(tail);
-        }
-        
-        public boolean isCovered(List<Integer> tail) {
-            return this.isCovered0(new LinkedList<>(tail));
-        }
-        
-        private boolean isCovered0(List<Integer> tail) {
-            if (tail.isEmpty()) {
-                return true;
-            }
-            int state = tail.remove(0);
-            TrieNode node = this.children.get(state);
-            return node != null && node.isCovered0(tail);
-        }
-        
+
+        private static final int[] NONE = new int[0];
+        private static final TrieNode[] NO_CHILDREN = new TrieNode[0];
+        private int[] childIds = NONE;
+        private TrieNode[] children = NO_CHILDREN;
+        private int childSize;
+        //how often each state followed this context
+        private int[] nextIds = NONE;
+        private int[] nextCounts = NONE;
+        private int nextSize;
+        private int total;
+
+        public void observe(int id) {
+            this.total++;
+            for (int i = 0; i < this.nextSize; i++) {
+                if (this.nextIds[i] == id) {
+                    this.nextCounts[i]++;
+                    return;
+                }
+            }
+            this.putNext(id, 1);
+        }
+
+        private void putNext(int id, int count) {
+            if (this.nextSize == this.nextIds.length) {
+                int size = Math.max(4, this.nextSize << 1);
+                this.nextIds = Arrays.copyOf(this.nextIds, size);
+                this.nextCounts = Arrays.copyOf(this.nextCounts, size);
+            }
+            this.nextIds[this.nextSize] = id;
+            this.nextCounts[this.nextSize++] = count;
+        }
+
+        public int count(int id) {
+            for (int i = 0; i < this.nextSize; i++) {
+                if (this.nextIds[i] == id) {
+                    return this.nextCounts[i];
+                }
+            }
+            return 0;
+        }
+
+        public TrieNode child(int id) {
+            for (int i = 0; i < this.childSize; i++) {
+                if (this.childIds[i] == id) {
+                    return this.children[i];
+                }
+            }
+            return null;
+        }
+
+        public TrieNode addChild(int id) {
+            if (this.childSize == this.childIds.length) {
+                int size = Math.max(4, this.childSize << 1);
+                this.childIds = Arrays.copyOf(this.childIds, size);
+                this.children = Arrays.copyOf(this.children, size);
+            }
+            TrieNode back = new TrieNode();
+            this.childIds[this.childSize] = id;
+            this.children[this.childSize++] = back;
+            return back;
+        }
+
+        public int mostLikely() {
+            int back = 0;
+            int max = -1;
+            for (int i = 0; i < this.nextSize; i++) {
+                if (this.nextCounts[i] > max) {
+                    max = this.nextCounts[i];
+                    back = this.nextIds[i];
+                }
+            }
+            return back;
+        }
+
+        //halves the counts below this node, dropping what reaches zero, and returns the nodes left below it
+        public int age() {
+            this.total = 0;
+            int kept = 0;
+            for (int i = 0; i < this.nextSize; i++) {
+                int halved = this.nextCounts[i] >> 1;
+                if (halved > 0) {
+                    this.nextIds[kept] = this.nextIds[i];
+                    this.nextCounts[kept++] = halved;
+                    this.total += halved;
+                }
+            }
+            this.nextSize = kept;
+            int below = 0;
+            kept = 0;
+            for (int i = 0; i < this.childSize; i++) {
+                TrieNode child = this.children[i];
+                int childBelow = child.age();
+                if (child.total > 0 || childBelow > 0) {
+                    this.childIds[kept] = this.childIds[i];
+                    this.children[kept++] = child;
+                    below += 1 + childBelow;
+                }
+            }
+            Arrays.fill(this.children, kept, this.childSize, null);
+            this.childSize = kept;
+            return below;
+        }
+
+        public void write(DataOutput out, StateDictionary<?> states) throws IOException {
+            out.writeInt(this.nextSize);
+            for (int i = 0; i < this.nextSize; i++) {
+                out.writeInt(states.stableKeyOf(this.nextIds[i]));
+                out.writeInt(this.nextCounts[i]);
+            }
+            out.writeInt(this.childSize);
+            for (int i = 0; i < this.childSize; i++) {
+                out.writeInt(states.stableKeyOf(this.childIds[i]));
+                this.children[i].write(out, states);
+            }
+        }
+
+        public static TrieNode read(ByteBuffer in, StateDictionary<?> states, int[] nodes, int depth) {
+            if (depth > MAX_ORDER || ++nodes[0] > NODE_BUDGET) {
+                throw new IllegalArgumentException("Trie exceeds its bounds");
+            }
+            TrieNode back = new TrieNode();
+            int next = in.getInt();
+            for (int i = 0; i < next; i++) {
+                int id = states.reserve(in.getInt());
+                int count = in.getInt();
+                back.putNext(id, count);
+                back.total += count;
+            }
+            int children = in.getInt();
+            for (int i = 0; i < children; i++) {
+                int id = states.reserve(in.getInt());
+                TrieNode child = TrieNode.read(in, states, nodes, depth + 1);
+                back.addChild(id);
+                back.children[back.childSize - 1] = child;
+            }
+            return back;
+        }
+
+        //moves the ids of this node and those below it from one dictionary over to another
+        public void remap(StateDictionary<?> from, StateDictionary<?> to) {
+            for (int i = 0; i < this.nextSize; i++) {
+                this.nextIds[i] = to.reserve(from.stableKeyOf(this.nextIds[i]));
+            }
+            for (int i = 0; i < this.childSize; i++) {
+                this.childIds[i] = to.reserve(from.stableKeyOf(this.childIds[i]));
+                this.children[i].remap(from, to);
+            }
+        }
+
+        public void collect(BitSet ids) {
+            for (int i = 0; i < this.nextSize; i++) {
+                ids.set(this.nextIds[i]);
+            }
+            for (int i = 0; i < this.childSize; i++) {
+                ids.set(this.childIds[i]);
+                this.children[i].collect(ids);
+            }
+        }
     }
 }
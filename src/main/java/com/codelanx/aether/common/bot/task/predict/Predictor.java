@@ -0,0 +1,41 @@
+package com.codelanx.aether.common.bot.task.predict;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Guesses a task's next state from the states it was previously observed in
+ *
+ * @param <E> The state type
+ */
+public interface Predictor<E> {
+
+    public void observeState(E state);
+
+    //whether there is a guess at all, as a guess may itself be null
+    public boolean hasPrediction();
+
+    //the likely next state, null if there's no prediction
+    public E predict();
+
+    /**
+     * How much the current prediction can be trusted
+     *
+     * @return The confidence within [0, 1], 0 if there is no prediction
+     */
+    public double getConfidence();
+
+    //writes what this predictor has learned, in the form read back by #read
+    public void write(DataOutput out) throws IOException;
+
+    /**
+     * Replaces what this predictor has learned with a previously written
+     * model. States are matched back up by {@link StateKeys} as they're
+     * observed again, and predictions of states not yet seen this session are
+     * withheld until then
+     *
+     * @param in The written model
+     */
+    public void read(ByteBuffer in);
+}
@@ -0,0 +1,198 @@
+package com.codelanx.aether.common.bot.task.predict;
+
+import com.codelanx.commons.logging.Logging;
+import com.codelanx.commons.util.Readable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the task predictors of a bot across sessions, in one binary file per
+ * bot class. On load only the index of the file is read; the file is memory
+ * mapped and each model is read the first time a task with its token asks for
+ * it. Models are keyed by {@link com.codelanx.aether.common.bot.task.AetherTask#getToken()},
+ * and tokens shared by several live tasks are ambiguous, so they aren't saved.
+ *
+ * File layout: magic, version, entry count, then per entry the token, the
+ * predictor class, the model's length and the model itself
+ */
+public class PredictorStore {
+
+    private static final int MAGIC = 0x41455052; //AEPR
+    private static final int VERSION = 1;
+    private final File file;
+    private final File temp;
+    private final Map<String, Entry> index = new LinkedHashMap<>();
+    private final Map<String, Predictor<?>> live = new HashMap<>();
+    private final Set<String> ambiguous = new HashSet<>();
+    private ByteBuffer mapped;
+
+    public PredictorStore(File folder, Class<?> bot) {
+        this.file = new File(folder, bot.getName() + ".bin");
+        this.temp = new File(folder, bot.getName() + ".bin.tmp");
+    }
+
+    //maps the file and reads its index, the models themselves are read as tasks ask for them
+    public synchronized void load() {
+        this.index.clear();
+        this.mapped = null;
+        if (this.temp.isFile()) {
+            //the last save couldn't replace the file (e.g. it was still mapped)
+            try {
+                Files.move(this.temp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Logging.warning("Unable to replace predictor models with their last save: " + e.getMessage());
+            }
+        }
+        if (!this.file.isFile()) {
+            return;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(this.file, "r"); FileChannel channel = raf.getChannel()) {
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                Logging.warning("Ignoring predictor models of an unknown format: " + this.file);
+                return;
+            }
+            int count = buf.getInt();
+            for (int i = 0; i < count; i++) {
+                String token = PredictorStore.readString(buf);
+                String type = PredictorStore.readString(buf);
+                int length = buf.getInt();
+                this.index.put(token, new Entry(type, buf.position(), length));
+                buf.position(buf.position() + length);
+            }
+            this.mapped = buf;
+            Logging.info("Found " + count + " predictor models in " + this.file);
+        } catch (RuntimeException | IOException e) {
+            Logging.severe("Error loading predictor models:");
+            Logging.severe(Readable.stackTraceToString(e));
+            this.index.clear();
+        }
+    }
+
+    /**
+     * Registers a task's predictor to be saved, restoring what it learned in
+     * a previous session if there is a model for it
+     *
+     * @param token The task's token
+     * @param predictor The task's predictor
+     */
+    public synchronized void attach(Class<?> token, Predictor<?> predictor) {
+        String key = token.getName();
+        if (this.ambiguous.contains(key)) {
+            return;
+        }
+        if (this.live.containsKey(key)) {
+            this.ambiguous.add(key);
+            this.live.remove(key);
+            return;
+        }
+        this.live.put(key, predictor);
+        Entry entry = this.index.get(key);
+        if (entry == null || this.mapped == null || !entry.type.equals(predictor.getClass().getName())) {
+            return;
+        }
+        try {
+            predictor.read(this.slice(entry));
+        } catch (RuntimeException e) {
+            Logging.warning("Discarding the unreadable predictor model of " + key + ": " + e);
+        }
+    }
+
+    //writes every live model, and carries over the stored ones no task asked for this session
+    public synchronized void save() {
+        File parent = this.file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            Logging.warning("Unable to create predictor model folder: " + parent);
+            return;
+        }
+        Map<String, Map.Entry<String, byte[]>> models = new LinkedHashMap<>();
+        this.index.forEach((token, entry) -> {
+            if (this.mapped != null && !this.ambiguous.contains(token)) {
+                ByteBuffer slice = this.slice(entry);
+                byte[] raw = new byte[entry.length];
+                slice.get(raw);
+                models.put(token, new SimpleImmutableEntry<>(entry.type, raw));
+            }
+        });
+        ByteArrayOutputStream model = new ByteArrayOutputStream();
+        for (Map.Entry<String, Predictor<?>> ent : this.live.entrySet()) {
+            model.reset();
+            try {
+                ent.getValue().write(new DataOutputStream(model));
+            } catch (IOException e) {
+                continue; //in-memory, won't happen
+            }
+            models.put(ent.getKey(), new SimpleImmutableEntry<>(ent.getValue().getClass().getName(), model.toByteArray()));
+        }
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(this.temp))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(models.size());
+            for (Map.Entry<String, Map.Entry<String, byte[]>> ent : models.entrySet()) {
+                PredictorStore.writeString(out, ent.getKey());
+                PredictorStore.writeString(out, ent.getValue().getKey());
+                out.writeInt(ent.getValue().getValue().length);
+                out.write(ent.getValue().getValue());
+            }
+        } catch (IOException e) {
+            Logging.severe("Error saving predictor models:");
+            Logging.severe(Readable.stackTraceToString(e));
+            return;
+        }
+        try {
+            Files.move(this.temp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            //picked up on the next load instead
+            Logging.warning("Unable to replace predictor models, keeping them aside until next start: " + e.getMessage());
+        }
+        Logging.info("Saved " + models.size() + " predictor models to " + this.file);
+    }
+
+    private ByteBuffer slice(Entry entry) {
+        ByteBuffer dup = this.mapped.duplicate();
+        dup.position(entry.offset);
+        dup.limit(entry.offset + entry.length);
+        return dup.slice();
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] raw = new byte[buf.getShort() & 0xFFFF];
+        buf.get(raw);
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] raw = s.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(raw.length);
+        out.write(raw);
+    }
+
+    private static class Entry {
+
+        private final String type;
+        private final int offset;
+        private final int length;
+
+        public Entry(String type, int offset, int length) {
+            this.type = type;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.codelanx.aether.common.bot.task.predict;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns the states a predictor observes to dense int ids, so predictors can
+ * keep them in primitive arrays. States are told apart by equals, so two
+ * states sharing a hash code never share an id.
+ *
+ * Ids can also be reserved for a {@link StateKeys stable key} read back from
+ * a persisted model; the first state observed with that key takes the
+ * reserved id. Ids which are released are reused by later states
+ *
+ * @param <E> The state type
+ */
+public final class StateDictionary<E> {
+
+    private static final Object NULL = new Object(); //null is a state too
+    private static final Object RESERVED = new Object(); //an id whose state hasn't been seen yet
+    private static final Object FREE = new Object();
+    private final Map<Object, Integer> ids = new HashMap<>();
+    private final Map<Integer, Integer> reserved = new HashMap<>(); //stable key to id, only filled from persisted models
+    private final List<Object> states = new ArrayList<>();
+    private int[] stableKeys = new int[16];
+    private int[] free = new int[16];
+    private int freeCount;
+
+    /**
+     * Gets the id of a state, assigning it one if it has none yet
+     *
+     * @param state The state to intern
+     * @return The state's id
+     */
+    public int intern(E state) {
+        Object key = state == null ? NULL : state;
+        Integer id = this.ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        int stable = StateKeys.of(state);
+        if (!this.reserved.isEmpty()) {
+            id = this.reserved.remove(stable);
+            if (id != null) {
+                this.states.set(id, key);
+                this.ids.put(key, id);
+                return id;
+            }
+        }
+        int back = this.allocate(key, stable);
+        this.ids.put(key, back);
+        return back;
+    }
+
+    //an id standing for the state with this stable key, until that state is interned
+    public int reserve(int stableKey) {
+        Integer id = this.reserved.get(stableKey);
+        if (id == null) {
+            id = this.allocate(RESERVED, stableKey);
+            this.reserved.put(stableKey, id);
+        }
+        return id;
+    }
+
+    //whether the id's state has been seen, rather than reserved or released
+    public boolean isBound(int id) {
+        if (id < 0 || id >= this.states.size()) {
+            return false;
+        }
+        Object state = this.states.get(id);
+        return state != RESERVED && state != FREE;
+    }
+
+    //the state of an id, null if it isn't bound
+    @SuppressWarnings("unchecked")
+    public E stateOf(int id) {
+        if (!this.isBound(id)) {
+            return null;
+        }
+        Object state = this.states.get(id);
+        return state == NULL ? null : (E) state;
+    }
+
+    //the id's StateKeys key, which holds across sessions
+    public int stableKeyOf(int id) {
+        return this.stableKeys[id];
+    }
+
+    //how many ids are in use, bound or reserved
+    public int size() {
+        return this.states.size() - this.freeCount;
+    }
+
+    //releases every id not set in live, for reuse
+    public void retain(BitSet live) {
+        for (int id = 0; id < this.states.size(); id++) {
+            Object state = this.states.get(id);
+            if (state == FREE || live.get(id)) {
+                continue;
+            }
+            if (state == RESERVED) {
+                this.reserved.remove(this.stableKeys[id]);
+            } else {
+                this.ids.remove(state);
+            }
+            this.states.set(id, FREE);
+            if (this.freeCount == this.free.length) {
+                this.free = Arrays.copyOf(this.free, this.freeCount << 1);
+            }
+            this.free[this.freeCount++] = id;
+        }
+    }
+
+    public void clear() {
+        this.ids.clear();
+        this.reserved.clear();
+        this.states.clear();
+        this.freeCount = 0;
+    }
+
+    private int allocate(Object key, int stableKey) {
+        int id;
+        if (this.freeCount > 0) {
+            id = this.free[--this.freeCount];
+            this.states.set(id, key);
+        } else {
+            id = this.states.size();
+            this.states.add(key);
+            if (id == this.stableKeys.length) {
+                this.stableKeys = Arrays.copyOf(this.stableKeys, id << 1);
+            }
+        }
+        this.stableKeys[id] = stableKey;
+        return id;
+    }
+}
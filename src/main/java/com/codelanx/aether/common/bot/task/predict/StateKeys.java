@@ -0,0 +1,24 @@
+package com.codelanx.aether.common.bot.task.predict;
+
+/**
+ * Hashes states in a way that holds across sessions, so persisted predictors
+ * still line up with the states they learned. Enums hash by identity, so they
+ * are keyed by name instead. Other states should override hashCode to be
+ * predicted across sessions
+ */
+public final class StateKeys {
+
+    private StateKeys() {
+    }
+
+    public static int of(Object state) {
+        if (state == null) {
+            return 0;
+        }
+        if (state instanceof Enum) {
+            Enum<?> e = (Enum<?>) state;
+            return 31 * e.getDeclaringClass().getName().hashCode() + e.name().hashCode();
+        }
+        return state.hashCode();
+    }
+}
@@ -1,11 +0,0 @@
-package com.codelanx.aether.common.bot.task.predict;
-
-/**
- * Created by rogue on 8/29/2017.
- */
-public class TriePattern<T> {
-    
-    public TriePattern(BranchPredictor<T> src) {
-        
-    }
-}
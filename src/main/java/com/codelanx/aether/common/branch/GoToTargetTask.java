@@ -4,7 +4,9 @@ import com.codelanx.aether.common.bot.Aether;
 import com.codelanx.aether.common.bot.Invalidator;
 import com.codelanx.aether.common.bot.Invalidators;
 import com.codelanx.aether.common.bot.task.AetherTask;
+import com.codelanx.aether.common.bot.task.CostTracker;
 import com.codelanx.aether.common.cache.Queryable;
+import com.codelanx.aether.common.cache.Snapshot;
 import com.codelanx.aether.common.cache.query.Inquiry;
 import com.codelanx.aether.common.input.UserInput;
 import com.codelanx.commons.logging.Logging;
@@ -26,10 +28,13 @@ import com.runemate.game.api.hybrid.util.calculations.Distance.Algorithm;
 import static com.runemate.game.api.hybrid.entities.GameObject.Direction.*;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -39,27 +44,75 @@ public class GoToTargetTask<T extends Locatable, I extends Inquiry> extends Aeth
     private static final int INTERACTION_DISTANCE_SQ = INTERACTION_DISTANCE * INTERACTION_DISTANCE;
     private final Supplier<T> target;
     private T lastTarget;
+    private Queryable<?, I> query; //null unless the target is a cache query
+    private volatile CostTracker<Coordinate> travelCosts;
+    private final boolean arrivalAction; //whether arrival runs through this task, so trips can be timed
+    //the trip under way, started by the walking leaf and ended by the arrival action
+    private final AtomicReference<Trip> trip = new AtomicReference<>();
 
     public GoToTargetTask(Supplier<T> target, AetherTask<?> arrival) {
         this.target = target;
         this.registerRunemateCall(Double.NEGATIVE_INFINITY, () -> Camera.turnTo(this.target.get()));
         this.register(d -> Math.abs(d) < INTERACTION_DISTANCE_SQ, arrival);
         this.registerDefault(new MoveToTargetTask(target));
+        this.arrivalAction = false;
     }
 
     public GoToTargetTask(Supplier<T> target, Consumer<T> action) {
         this.target = target;
         this.registerRunemateCall(Double.NEGATIVE_INFINITY, () -> Camera.turnTo(this.target.get()));
-        this.register(d -> Math.abs(d) < INTERACTION_DISTANCE_SQ, () -> action.accept(this.lastTarget));
+        this.register(d -> Math.abs(d) < INTERACTION_DISTANCE_SQ, () -> {
+            this.endTrip(this.lastTarget);
+            action.accept(this.lastTarget);
+        });
         this.registerDefault(new MoveToTargetTask(target));
+        this.arrivalAction = true;
     }
 
     public <V extends LocatableEntity> GoToTargetTask(Queryable<V, I> target, Consumer<V> action) {
         this(() -> (T) target.queryGlobal().findFirst().orElse(null), (Consumer<T>) action);
+        this.query = target;
     }
 
     public <V extends LocatableEntity> GoToTargetTask(Queryable<V, I> target, AetherTask<?> arrival) {
         this(() -> (T) target.queryGlobal().findFirst().orElse(null), arrival);
+        this.query = target;
+    }
+
+    //reports how long each trip to a target took per tile walked, keyed by where the target is. Trips are
+    //timed from the first step walked to the arrival action, so an arrival task can't be tracked
+    public GoToTargetTask<T, I> trackTravelCost(CostTracker<Coordinate> costs) {
+        if (!this.arrivalAction) {
+            throw new UnsupportedOperationException("Travel costs need an arrival action to end trips");
+        }
+        this.travelCosts = costs;
+        return this;
+    }
+
+    //called from the walking leaf's execution, keeping the trip already under way to the same place
+    private void startTrip(Locatable target) {
+        if (this.travelCosts == null || target == null) {
+            return;
+        }
+        Coordinate pos = target.getPosition();
+        this.trip.updateAndGet(t -> t != null && t.to.equals(pos) ? t
+                : new Trip(pos, Math.sqrt(Distance.between(pos, Snapshot.get().getLocalPlayer(), Algorithm.EUCLIDEAN_SQUARED))));
+    }
+
+    //called from the arrival action's execution, a trip to somewhere else is dropped
+    private void endTrip(T target) {
+        CostTracker<Coordinate> costs = this.travelCosts;
+        Trip trip = this.trip.getAndSet(null);
+        if (costs == null || trip == null || target == null || !trip.to.equals(target.getPosition())) {
+            return;
+        }
+        //per tile, so a trip from further away doesn't make the target look slower
+        costs.record(trip.to, Math.round((System.currentTimeMillis() - trip.startMs) / Math.max(1, trip.startDist)));
+    }
+
+    @Override
+    public Collection<? extends Queryable<?, ?>> getPrefetchQueries() {
+        return this.query == null ? Collections.emptyList() : Collections.singletonList(this.query);
     }
 
     @Override
@@ -73,7 +126,7 @@ public class GoToTargetTask<T extends Locatable, I extends Inquiry> extends Aeth
             T obj = this.target.get();
             this.lastTarget = obj;
             if (obj != null) {
-                double dist = Distance.between(obj, Players.getLocal(), Algorithm.EUCLIDEAN_SQUARED);
+                double dist = Distance.between(obj, Snapshot.get().getLocalPlayer(), Algorithm.EUCLIDEAN_SQUARED);
                 if (obj instanceof LocatableEntity && !((LocatableEntity) obj).isVisible() && dist < INTERACTION_DISTANCE_SQ) {
                     return Double.NEGATIVE_INFINITY;
                 }
@@ -130,7 +183,7 @@ public class GoToTargetTask<T extends Locatable, I extends Inquiry> extends Aeth
                     if (last != null && Distance.between(origin, last, Algorithm.EUCLIDEAN_SQUARED) <= INTERACTION_DISTANCE_SQ) {
                         return new PathWrapper(Invalidators.SELF);
                     }
-                    double dist = Distance.between(this.cached, Players.getLocal(), Distance.Algorithm.EUCLIDEAN_SQUARED);
+                    double dist = Distance.between(this.cached, Snapshot.get().getLocalPlayer(), Distance.Algorithm.EUCLIDEAN_SQUARED);
                     if (dist > INTERACTION_DISTANCE_SQ) {
                         //TODO: Cache
                         Path path = this.createPath(origin);
@@ -173,6 +226,7 @@ public class GoToTargetTask<T extends Locatable, I extends Inquiry> extends Aeth
             Locatable loc = path.getPath().getNext();
             this.targetLock.write(() -> this.lastTarget.value = loc);
             UserInput.runemateInput(path.getPath()::step);
+            GoToTargetTask.this.startTrip(this.cached);
             return Invalidators.SELF;
             /*return path.getVertices().size() - path.getVertices().indexOf(loc) < INTERACTION_DISTANCE
                     ? Invalidators.ALL
@@ -241,6 +295,18 @@ public class GoToTargetTask<T extends Locatable, I extends Inquiry> extends Aeth
         }
     }
     
+    private static class Trip {
+
+        private final Coordinate to;
+        private final long startMs = System.currentTimeMillis();
+        private final double startDist;
+
+        public Trip(Coordinate to, double startDist) {
+            this.to = to;
+            this.startDist = startDist;
+        }
+    }
+
     private static class PathWrapper {
         
         private final Path path;
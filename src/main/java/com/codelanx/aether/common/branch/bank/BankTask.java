@@ -1,30 +1,45 @@
 package com.codelanx.aether.common.branch.bank;
 
 import com.codelanx.aether.common.bot.task.AetherTask;
+import com.codelanx.aether.common.bot.task.CostTracker;
 import com.codelanx.aether.common.branch.GoToTargetTask;
 import com.codelanx.aether.common.branch.bank.withdraw.BankRecipeTask;
+import com.codelanx.aether.common.cache.Snapshot;
 import com.codelanx.aether.common.json.recipe.Recipe;
 import com.runemate.game.api.hybrid.entities.LocatableEntity;
 import com.runemate.game.api.hybrid.local.hud.interfaces.Bank;
+import com.runemate.game.api.hybrid.location.Coordinate;
 import com.runemate.game.api.hybrid.queries.results.LocatableEntityQueryResults;
 import com.runemate.game.api.hybrid.region.Banks;
+import com.runemate.game.api.hybrid.util.calculations.Distance;
+import com.runemate.game.api.hybrid.util.calculations.Distance.Algorithm;
 
 import java.util.Objects;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class BankTask extends AetherTask<Boolean> {
 
+    //time per tile walked to each bank we've used, weighed against how far each is from us now
+    private final CostTracker<Coordinate> travel = new CostTracker<>();
+
     public BankTask(Recipe recipe) {
         this.register(true, new BankRecipeTask(recipe));
-        Supplier<? extends LocatableEntity> bank = () -> Stream.of(Banks.getLoadedBankBooths(), Banks.getLoadedBankChests(), Banks.getLoadedBankers())
-                .map(LocatableEntityQueryResults::nearest).filter(Objects::nonNull).findFirst().orElse(null);
-        this.register(false, new GoToTargetTask<>(bank, Bank::open));
+        Supplier<? extends LocatableEntity> bank = () -> this.travel.cheapest(Stream.of(Banks.getLoadedBankBooths(), Banks.getLoadedBankChests(), Banks.getLoadedBankers())
+                .map(LocatableEntityQueryResults::nearest).filter(Objects::nonNull).collect(Collectors.toList()),
+                LocatableEntity::getPosition, b -> Distance.between(b, Snapshot.get().getLocalPlayer(), Algorithm.EUCLIDEAN));
+        this.register(false, new GoToTargetTask<>(bank, Bank::open).trackTravelCost(this.travel));
+    }
+
+    @Override
+    public boolean isDependencyTracked() {
+        return true;
     }
 
     @Override
     public Supplier<Boolean> getStateNow() {
-        return Bank::isOpen;
+        return () -> Snapshot.get().isBankOpen();
     }
 
 }
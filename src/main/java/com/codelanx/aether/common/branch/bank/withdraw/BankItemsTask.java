@@ -4,15 +4,12 @@ import com.codelanx.aether.common.Common;
 import com.codelanx.aether.common.Common.Banks;
 import com.codelanx.aether.common.bot.Invalidators;
 import com.codelanx.aether.common.bot.task.AetherTask;
-import com.codelanx.aether.common.cache.Caches;
-import com.codelanx.aether.common.cache.form.ContainerCache;
+import com.codelanx.aether.common.cache.Snapshot;
 import com.codelanx.aether.common.input.UserInput;
 import com.codelanx.aether.common.json.item.ItemStack;
 import com.codelanx.aether.common.json.item.Material;
-import com.codelanx.aether.common.json.item.Materials;
 import com.codelanx.commons.logging.Logging;
 import com.runemate.game.api.hybrid.local.hud.interfaces.Bank;
-import com.runemate.game.api.hybrid.local.hud.interfaces.SpriteItem;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -21,7 +18,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 public class BankItemsTask extends AetherTask<ItemStack> {
 
@@ -58,17 +54,22 @@ public class BankItemsTask extends AetherTask<ItemStack> {
         });
     }
 
+    @Override
+    public boolean isDependencyTracked() {
+        return true;
+    }
+
     @Override
     public Supplier<ItemStack> getStateNow() {
         return () -> {
             //check inventory contents first
-            Caches.forInventory().loadAll();
-            Map<Material, List<SpriteItem>> current = Caches.forInventory().getAllLoaded().collect(Collectors.groupingBy(Materials::getMaterial));
+            Snapshot snapshot = Snapshot.get();
+            Map<Material, Integer> current = new HashMap<>(snapshot.getInventory());
             int beforeSize = current.size();
             Logging.info("BankItemsTask current map: " + current);
             current.entrySet().removeIf(ent -> {
                 int amt = this.itemCache.getOrDefault(ent.getKey(), 0);
-                return amt > 0 && ContainerCache.count(ent.getValue().stream()) <= amt;
+                return amt > 0 && ent.getValue() <= amt;
             });
             if (!current.isEmpty()) {
                 if (beforeSize >> 1 < current.size()) {
@@ -77,13 +78,13 @@ public class BankItemsTask extends AetherTask<ItemStack> {
                 Material m = current.keySet().iterator().next();
                 //return a deposited item
                 int needed = this.itemCache.getOrDefault(m, 0);
-                return new ItemStack(m, -ContainerCache.count(current.get(m).stream()) + needed);
+                return new ItemStack(m, -current.get(m) + needed);
             }
             //check what needs withdrawing
             Iterator<ItemStack> stacks = this.items.iterator();
             while (stacks.hasNext()) {
                 ItemStack i = stacks.next();
-                int targetCount = Caches.forInventory().count(i.getMaterial());
+                int targetCount = snapshot.getInventoryCount(i.getMaterial());
                 Logging.info("Inventory target count: " + targetCount);
                 if (targetCount < i.getQuantity()) {
                     return i;
@@ -6,6 +6,7 @@ import com.codelanx.aether.common.bot.Invalidator;
 import com.codelanx.aether.common.bot.Invalidators;
 import com.codelanx.aether.common.input.UserInput;
 import com.codelanx.aether.common.cache.Caches;
+import com.codelanx.aether.common.cache.Snapshot;
 import com.codelanx.aether.common.input.type.MouseTarget;
 import com.codelanx.aether.common.json.item.ItemStack;
 import com.codelanx.aether.common.json.recipe.Recipe;
@@ -14,7 +15,6 @@ import com.runemate.game.api.hybrid.Environment;
 import com.runemate.game.api.hybrid.entities.GameObject;
 import com.runemate.game.api.hybrid.local.hud.interfaces.Interfaces;
 import com.runemate.game.api.hybrid.local.hud.interfaces.SpriteItem;
-import com.runemate.game.api.hybrid.region.Players;
 
 import java.util.List;
 import java.util.function.Supplier;
@@ -31,7 +31,7 @@ public class InteractionTask implements Supplier<Invalidator> {
 
     @Override
     public Invalidator get() {
-        if (Players.getLocal().getAnimationId() != -1) {
+        if (Snapshot.get().isAnimating()) {
             return Invalidators.NONE;
         }
         switch (this.recipe.getRecipeType()) {
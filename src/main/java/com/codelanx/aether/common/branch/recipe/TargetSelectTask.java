@@ -1,12 +1,11 @@
 package com.codelanx.aether.common.branch.recipe;
 
 import com.codelanx.aether.common.bot.task.AetherTask;
+import com.codelanx.aether.common.cache.Snapshot;
 import com.codelanx.aether.common.json.recipe.Recipe;
 import com.codelanx.aether.common.menu.dialog.DialogueIterator;
 import com.runemate.game.api.hybrid.Environment;
 import com.runemate.game.api.hybrid.local.hud.interfaces.InterfaceContainers;
-import com.runemate.game.api.hybrid.local.hud.interfaces.Interfaces;
-import com.runemate.game.api.hybrid.queries.results.InterfaceComponentQueryResults;
 
 import java.util.function.Supplier;
 
@@ -25,19 +24,29 @@ public class TargetSelectTask extends AetherTask<Boolean> {
         return !this.recipe.hasContainer();
     }
 
+    //an interface query, retried rather than waited on if the client stalls
+    @Override
+    public long getEvaluationDeadlineMS() {
+        return 1200;
+    }
+
+    @Override
+    public boolean isDependencyTracked() {
+        return true;
+    }
+
     @Override
     public Supplier<Boolean> getStateNow() {
         return () -> {
             if (!this.recipe.hasContainer()) {
                 return false;
             }
-            //TODO: Optimize
             Environment.getLogger().info("Recipe target validation time");
             Environment.getLogger().info("Chat title: " + DialogueIterator.getTitleSafe());
             Environment.getLogger().info("Container loaded: " + InterfaceContainers.isLoaded(this.recipe.getContainerId()));
-            InterfaceComponentQueryResults res = Interfaces.newQuery().containers(this.recipe.getContainerId()).visible().results();
-            Environment.getLogger().info("Query: " + res);
-            return res.size() > 0;
+            boolean visible = Snapshot.get().isContainerVisible(this.recipe.getContainerId());
+            Environment.getLogger().info("Container visible: " + visible);
+            return visible;
         };
     }
 
@@ -1,12 +1,14 @@
 package com.codelanx.aether.common.cache;
 
+import com.codelanx.aether.common.BotConfig;
 import com.codelanx.aether.common.cache.query.Inquiry;
 import com.codelanx.commons.logging.Logging;
 import com.codelanx.commons.util.OptimisticLock;
 import com.codelanx.commons.util.Parallel;
 import com.codelanx.commons.util.Readable;
 import com.codelanx.commons.util.Reflections;
-import com.codelanx.commons.util.Scheduler;
+import com.codelanx.aether.common.bot.Aether;
+import com.codelanx.aether.common.bot.task.DependencyGraph;
 import com.runemate.game.api.hybrid.entities.details.Interactable;
 import com.runemate.game.api.hybrid.queries.QueryBuilder;
 import com.runemate.game.api.hybrid.queries.results.QueryResults;
@@ -14,6 +16,8 @@ import com.runemate.game.api.hybrid.util.Validatable;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
@@ -24,12 +28,15 @@ import java.util.stream.Stream;
  * Created by rogue on 8/14/2017.
  */
 //calls to caches will block until correct info is available. Try to avoid main bot thread
+//each inquiry is loaded once however many callers ask for it meanwhile, and entries may be
+//reloaded ahead of expiring (see #isRefreshAhead) so readers never wait on a reload
 public abstract class GameCache<T extends Interactable, I extends Inquiry> {
 
-    private final Map<I, CacheHolder<T>> results = new HashMap<>();
-    private final Map<I, CompletableFuture<List<T>>> queries = new HashMap<>();
-    private final OptimisticLock lock = new OptimisticLock();
-    private final OptimisticLock queryLock = new OptimisticLock();
+    private final ConcurrentMap<I, CacheHolder<T>> results = new ConcurrentHashMap<>();
+    //in-flight first loads, which callers of the same inquiry share
+    private final ConcurrentMap<I, CompletableFuture<CacheHolder<T>>> loads = new ConcurrentHashMap<>();
+    //inquiries being reloaded in the background
+    private final Set<I> refreshing = ConcurrentHashMap.newKeySet();
     
     public abstract Supplier<? extends QueryResults<T, ?>> getRunemateResults(I inquiry);
     
@@ -42,43 +49,93 @@ public abstract class GameCache<T extends Interactable, I extends Inquiry> {
     public abstract QueryType getType();
 
     public boolean isEmpty() {
+        DependencyGraph.read(this.getType(), null);
         return this.results.isEmpty();
     }
     
     //blocking, returns when completed
     protected final CacheHolder<T> compute(I inq) {
         Logging.info(this.getType().name() + "(cache)#compute(" + inq + ")");
-        CacheHolder<T> back = this.lock.read(() -> this.results.get(inq));
+        DependencyGraph.read(this.getType(), inq);
+        CacheHolder<T> back = this.results.get(inq);
         if (back == null) {
-            CompletableFuture<List<T>> query = this.getQuery(inq); //TODO: Thread safety
             try {
-                CacheHolder<T> res = new CacheHolder<>(query.get());
-                Scheduler.runAsyncTask(() -> {
-                    Logging.info("Inserting results: " + res);
-                    this.lock.write(() -> this.results.put(inq, res));
-                    this.queryLock.write(() -> this.queries.remove(inq));
-                });
-                Logging.info("Returning new results: " + res);
-                return res;
+                back = this.load(inq).get();
             } catch (ExecutionException | InterruptedException e) {
                 Logging.severe("Cache query interrupted / Error querying for information:");
                 Logging.severe(Readable.stackTraceToString(e));
-                this.lock.write(() -> this.results.remove(inq));
-                this.queryLock.write(() -> this.queries.remove(inq));
                 throw new RuntimeException("Cache failed to load", e);
             }
         }
-        Logging.info("Returning cached results: " + back);
         return back;
     }
 
+    //the pending load of an inquiry, starting it unless it's already loading
+    private CompletableFuture<CacheHolder<T>> load(I inq) {
+        CompletableFuture<CacheHolder<T>> created = new CompletableFuture<>();
+        CompletableFuture<CacheHolder<T>> pending = this.loads.putIfAbsent(inq, created);
+        if (pending != null) {
+            return pending;
+        }
+        //a load may have finished between the caller missing the results and getting here
+        CacheHolder<T> held = this.results.get(inq);
+        if (held != null) {
+            this.loads.remove(inq, created);
+            created.complete(held);
+            return created;
+        }
+        this.schedule(inq).whenComplete((list, ex) -> {
+            if (ex != null) {
+                this.loads.remove(inq, created);
+                created.completeExceptionally(ex);
+                return;
+            }
+            CacheHolder<T> fresh = new CacheHolder<>(list);
+            CacheHolder<T> old = this.results.putIfAbsent(inq, fresh);
+            //inserted before the load is dropped, so no caller can miss both
+            this.loads.remove(inq, created);
+            created.complete(old == null ? fresh : old);
+        });
+        return created;
+    }
+
+    //starts loading an inquiry on the pool without waiting on it, unless it's loading already or held and fresh
+    public final void prefetch(I inq) {
+        CacheHolder<T> hold = this.results.get(inq);
+        if (hold == null) {
+            this.load(inq);
+        } else if (this.isNearExpiry(hold)) {
+            this.refresh(inq, hold);
+        }
+    }
+
     //lifetime of a cached object in milliseconds
     public abstract long getLifetimeMS();
 
+    /**
+     * Whether entries are reloaded in the background as they near the end of
+     * their {@link #getLifetimeMS() lifetime}, rather than on the reading
+     * thread once they're past it. Readers are given the held value until the
+     * reload completes. Caches without a positive lifetime are always reloaded
+     * on the reading thread regardless
+     *
+     * @return {@code true} to reload ahead of time
+     */
+    protected boolean isRefreshAhead() {
+        return BotConfig.CACHE_REFRESH_AHEAD.as(boolean.class);
+    }
+
     //gets a copy of the currently held cached value, and updates it if necessary
     public final Stream<T> getCurrent(I inq) {
         CacheHolder<T> hold = this.compute(inq);
-        if (this.getLifetimeMS() <= 0 || hold.getLastUpdateMS() + this.getLifetimeMS() > System.currentTimeMillis()) {
+        long lifetime = this.getLifetimeMS();
+        long age = System.currentTimeMillis() - hold.getLastUpdateMS();
+        //entries without a lifetime are always reloaded before reading, there's nothing to refresh ahead of
+        if (lifetime > 0 && this.isRefreshAhead()) {
+            if (this.isNearExpiry(hold)) {
+                this.refresh(inq, hold);
+            }
+        } else if (lifetime <= 0 || age >= lifetime) {
             hold.update(this, inq);
         }
         //uses a copy atm in case list changes
@@ -129,23 +186,44 @@ public abstract class GameCache<T extends Interactable, I extends Inquiry> {
         this.replaceFirst(inq.toInquiry(), replacement);
     }
     
-    public final void invalidate(I inq, T item) {
-        this.lock.write(() -> {
-            CacheHolder<?> hold = this.results.getOrDefault(inq, CacheHolder.EMPTY);
-            if (hold.lock.write(() -> hold.getList().remove(item))) {
-                this.onInvalidate(inq, item);
+    //within a quarter of the lifetime of expiring or past it, so entries in steady use never expire
+    private boolean isNearExpiry(CacheHolder<T> hold) {
+        long lifetime = this.getLifetimeMS();
+        return lifetime > 0 && System.currentTimeMillis() - hold.getLastUpdateMS() >= lifetime - (lifetime >> 2);
+    }
+
+    //reloads an entry on the pool, at most once at a time per inquiry
+    private void refresh(I inq, CacheHolder<T> hold) {
+        if (!this.refreshing.add(inq)) {
+            return;
+        }
+        this.schedule(inq).whenComplete((list, ex) -> {
+            this.refreshing.remove(inq);
+            if (ex == null) {
+                hold.replace(this, inq, list);
+            } else {
+                Logging.warning("Error refreshing " + this.getType().name() + " cache for " + inq + ": " + ex);
             }
         });
     }
 
+    public final void invalidate(I inq, T item) {
+        CacheHolder<T> hold = this.results.get(inq);
+        if (hold != null && hold.lock.write(() -> hold.getList().remove(item))) {
+            this.onInvalidate(inq, item);
+            DependencyGraph.changed(this.getType(), inq);
+        }
+    }
+
     public final void invalidate(Queryable<T, I> inq, T item) {
         this.invalidate(inq.toInquiry(), item);
     }
     
     public final List<T> invalidateByType(I inq) {
-        CacheHolder<T> back = this.lock.write(() -> this.results.remove(inq));
+        CacheHolder<T> back = this.results.remove(inq);
         if (back != null) {
             this.onInvalidate(inq, null);
+            DependencyGraph.changed(this.getType(), inq);
             return back.getList();
         }
         return null;
@@ -160,27 +238,23 @@ public abstract class GameCache<T extends Interactable, I extends Inquiry> {
     }
     
     public final void invalidateAll() {
-        this.lock.write(this.results::clear);
+        this.results.clear();
         this.onInvalidate(null, null);
+        DependencyGraph.changed(this.getType(), null);
     }
     
     //null if not present, otherwise current
     protected CacheHolder<T> getCurrentRaw(I inq) {
-        return this.lock.read(() -> this.results.get(inq));
-    }
-    
-    protected final CompletableFuture<List<T>> getQuery(I inq) {
-        return this.queryLock.write(() -> this.queries.computeIfAbsent(inq, this::schedule));
+        return this.results.get(inq);
     }
     
     protected CompletableFuture<List<T>> schedule(I inq) {
-        return Scheduler.complete(this.getRunemateResults(inq)).thenApply(QueryResults::asList);
+        return Aether.getScheduler().complete(this.getRunemateResults(inq)).thenApply(QueryResults::asList);
     }
 
     
     private static class CacheHolder<T extends Interactable> {
 
-        private static final CacheHolder EMPTY = new CacheHolder<>(Collections.emptyList());
         private final List<T> list = new ArrayList<>();
         private final AtomicLong lastUpdate = new AtomicLong(System.currentTimeMillis());
         private final OptimisticLock lock = new OptimisticLock();
@@ -202,12 +276,22 @@ public abstract class GameCache<T extends Interactable, I extends Inquiry> {
         }
 
         public <I extends Inquiry> void update(GameCache<T, I> cache, I inquiry) {
-            List<T> fresh = cache.getRunemateResults(inquiry).get().asList();
-            this.lock.write(() -> {
+            this.replace(cache, inquiry, cache.getRunemateResults(inquiry).get().asList());
+        }
+
+        public <I extends Inquiry> void replace(GameCache<T, I> cache, I inquiry, List<T> fresh) {
+            boolean changed = this.lock.write(() -> {
+                if (this.list.equals(fresh)) {
+                    return false;
+                }
                 this.list.clear();
                 this.list.addAll(fresh);
+                return true;
             });
             this.lastUpdate.set(System.currentTimeMillis());
+            if (changed) {
+                DependencyGraph.changed(cache.getType(), inquiry);
+            }
         }
 
         public long getLastUpdateMS() {
@@ -1,5 +1,7 @@
 package com.codelanx.aether.common.cache;
 
+import com.codelanx.aether.common.bot.Aether;
+import com.codelanx.aether.common.bot.AsyncBot;
 import com.codelanx.aether.common.cache.form.*;
 import com.codelanx.aether.common.cache.form.container.BankCache;
 import com.codelanx.aether.common.cache.form.container.EquipmentCache;
@@ -30,15 +32,24 @@ public enum QueryType {
     ;
     
     private final Class<?> token;
-    private final GameCache<?, ?> cache;
+    private final Supplier<GameCache<?, ?>> factory;
 
-    private QueryType(Class<?> token, Supplier<GameCache<?, ?>> cache) {
+    private QueryType(Class<?> token, Supplier<GameCache<?, ?>> factory) {
         this.token = token;
-        this.cache = cache.get();
+        this.factory = factory;
     }
-    
+
+    //each bot holds its own caches, see AsyncBot#getCache
     public GameCache<?, ?> getCache() {
-        return this.cache;
+        AsyncBot bot = Aether.getBot();
+        if (bot == null) {
+            throw new IllegalStateException("No bot is bound to thread " + Thread.currentThread().getName());
+        }
+        return bot.getCache(this);
+    }
+
+    public GameCache<?, ?> newCache() {
+        return this.factory.get();
     }
     
     public Class<?> getToken() {
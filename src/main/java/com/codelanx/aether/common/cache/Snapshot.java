@@ -0,0 +1,201 @@
+package com.codelanx.aether.common.cache;
+
+import com.codelanx.aether.common.bot.Aether;
+import com.codelanx.aether.common.bot.task.Dependency;
+import com.codelanx.aether.common.bot.task.DependencyGraph;
+import com.codelanx.aether.common.json.item.Material;
+import com.codelanx.aether.common.json.item.Materials;
+import com.codelanx.commons.logging.Logging;
+import com.runemate.game.api.hybrid.entities.Player;
+import com.runemate.game.api.hybrid.local.hud.interfaces.Bank;
+import com.runemate.game.api.hybrid.local.hud.interfaces.Interfaces;
+import com.runemate.game.api.hybrid.local.hud.interfaces.Inventory;
+import com.runemate.game.api.hybrid.local.hud.interfaces.SpriteItem;
+import com.runemate.game.api.hybrid.location.Coordinate;
+import com.runemate.game.api.hybrid.region.Players;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A per-tick view of commonly read game state. Each fact is loaded from
+ * runemate the first time it's asked for within a tick, and every neuron and
+ * task evaluated during that tick sees the same value.
+ *
+ * Anything polling across ticks (e.g. {@link com.codelanx.aether.common.bot.AsyncExec#delayUntil})
+ * should query runemate directly, as the snapshot only moves forward when the
+ * brain ticks.
+ *
+ * Facts read by dependency tracked tasks are reloaded on the pool as the
+ * snapshot advances, and those tasks are invalidated (waking the bot) if the
+ * value moved, so the bot thread never waits on a reload nobody asked for
+ */
+public class Snapshot {
+
+    private final DependencyGraph dependencies;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final Fact<Player> player = new Fact<>("player", Players::getLocal);
+    private final Fact<Coordinate> position = new Fact<>("position", () -> {
+        Player p = this.getLocalPlayer();
+        return p == null ? null : p.getPosition();
+    });
+    private final Fact<Integer> animation = new Fact<>("animation", () -> {
+        Player p = this.getLocalPlayer();
+        return p == null ? -1 : p.getAnimationId();
+    });
+    private final Fact<Boolean> bankOpen = new Fact<>("bankOpen", Bank::isOpen);
+    private final Fact<Map<Material, Integer>> inventory = new Fact<>("inventory", Snapshot::loadInventory);
+    private final Map<Integer, Fact<Boolean>> containers = new ConcurrentHashMap<>();
+    private final Fact<?>[] facts = { this.player, this.position, this.animation, this.bankOpen, this.inventory };
+
+    public Snapshot(DependencyGraph dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    public static Snapshot get() {
+        return Aether.getBot().getSnapshot();
+    }
+
+    //called by the brain at the start of every tick, invalidating everything previously loaded
+    public void advance() {
+        long gen = this.generation.incrementAndGet();
+        //a refresh still running from an earlier tick will report what moved by itself
+        if (this.refreshing.compareAndSet(false, true)) {
+            Aether.getScheduler().runAsync(() -> {
+                try {
+                    this.refresh(gen);
+                } finally {
+                    this.refreshing.set(false);
+                }
+            });
+        }
+    }
+
+    private void refresh(long gen) {
+        for (Fact<?> fact : this.facts) {
+            fact.refresh(gen);
+        }
+        this.containers.values().forEach(fact -> fact.refresh(gen));
+    }
+
+    public long getGeneration() {
+        return this.generation.get();
+    }
+
+    public Player getLocalPlayer() {
+        return this.player.get();
+    }
+
+    //null if the local player isn't loaded
+    public Coordinate getPosition() {
+        return this.position.get();
+    }
+
+    //-1 when idle (or not loaded)
+    public int getAnimationId() {
+        return this.animation.get();
+    }
+
+    public boolean isAnimating() {
+        return this.getAnimationId() != -1;
+    }
+
+    public boolean isBankOpen() {
+        return this.bankOpen.get();
+    }
+
+    //total quantity of each known material within the inventory
+    public Map<Material, Integer> getInventory() {
+        return this.inventory.get();
+    }
+
+    public int getInventoryCount(Material material) {
+        return this.getInventory().getOrDefault(material, 0);
+    }
+
+    //whether any component of the given interface container is visible
+    public boolean isContainerVisible(int containerId) {
+        return this.containers.computeIfAbsent(containerId,
+                id -> new Fact<>(id, () -> Interfaces.newQuery().containers(id).visible().results().size() > 0)).get();
+    }
+
+    private static Map<Material, Integer> loadInventory() {
+        Map<Material, Integer> back = new HashMap<>();
+        for (SpriteItem item : Inventory.getItems()) {
+            Material m = Materials.getMaterial(item);
+            if (m != null) {
+                back.merge(m, item.getQuantity(), Integer::sum);
+            }
+        }
+        return Collections.unmodifiableMap(back);
+    }
+
+    private class Fact<T> {
+
+        private final Dependency dependency;
+        private final Supplier<T> loader;
+        private volatile long loadedAt = -1;
+        private T value;
+
+        public Fact(Object key, Supplier<T> loader) {
+            this.dependency = Dependency.of(Snapshot.class, key);
+            this.loader = loader;
+        }
+
+        //reloads the fact if anything depends on it and it wasn't read this tick already
+        public void refresh(long gen) {
+            if (!Snapshot.this.dependencies.hasDependents(this.dependency)) {
+                return;
+            }
+            boolean changed;
+            synchronized (this) {
+                if (this.loadedAt >= gen) {
+                    return;
+                }
+                try {
+                    changed = this.load(gen);
+                } catch (RuntimeException ex) {
+                    Logging.warning("Error refreshing snapshot of " + this.dependency + ": " + ex);
+                    return;
+                }
+            }
+            if (changed) {
+                Snapshot.this.dependencies.changed(this.dependency);
+            }
+        }
+
+        public T get() {
+            DependencyGraph.read(this.dependency.getSource(), this.dependency.getKey());
+            long gen = Snapshot.this.generation.get();
+            boolean changed = false;
+            if (this.loadedAt != gen) {
+                synchronized (this) {
+                    if (this.loadedAt != gen) {
+                        changed = this.load(gen);
+                    }
+                }
+            }
+            //loaded here before the refresh got to it, tasks holding the old value are invalidated all the same
+            if (changed && Snapshot.this.dependencies.hasDependents(this.dependency)) {
+                Snapshot.this.dependencies.changed(this.dependency);
+            }
+            return this.value;
+        }
+
+        //must hold the lock, returns whether a previously loaded value moved
+        private boolean load(long gen) {
+            T old = this.value;
+            boolean loaded = this.loadedAt >= 0;
+            this.value = this.loader.get();
+            this.loadedAt = gen;
+            return loaded && !Objects.equals(old, this.value);
+        }
+    }
+}
@@ -4,7 +4,7 @@ import com.codelanx.aether.common.cache.QueryType;
 import com.codelanx.aether.common.cache.query.MaterialInquiry;
 import com.codelanx.aether.common.json.item.Material;
 import com.codelanx.aether.common.json.item.Materials;
-import com.codelanx.commons.util.Scheduler;
+import com.codelanx.aether.common.bot.Aether;
 import com.runemate.game.api.hybrid.local.hud.interfaces.Bank;
 import com.runemate.game.api.hybrid.local.hud.interfaces.SpriteItem;
 import com.runemate.game.api.hybrid.queries.SpriteItemQueryBuilder;
@@ -49,7 +49,7 @@ public class BankCache extends ItemCache {
 
     @Override
     protected CompletableFuture<List<SpriteItem>> schedule(MaterialInquiry inq) {
-        return Scheduler.complete(() -> {
+        return Aether.getScheduler().complete(() -> {
             SpriteItem back = this.items.get(inq.getMaterial());
             return back == null ? Collections.emptyList() : Collections.singletonList(back);
         });
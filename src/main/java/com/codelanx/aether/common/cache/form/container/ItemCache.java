@@ -7,7 +7,7 @@ import com.codelanx.aether.common.json.item.Material;
 import com.codelanx.aether.common.json.item.Materials;
 import com.codelanx.commons.util.Lambdas;
 import com.codelanx.commons.util.Parallel;
-import com.codelanx.commons.util.Scheduler;
+import com.codelanx.aether.common.bot.Aether;
 import com.runemate.game.api.hybrid.Environment;
 import com.runemate.game.api.hybrid.local.hud.interfaces.SpriteItem;
 import com.runemate.game.api.hybrid.queries.SpriteItemQueryBuilder;
@@ -65,7 +65,7 @@ public abstract class ItemCache extends GameCache<SpriteItem, MaterialInquiry> {
 
     @Override
     protected CompletableFuture<List<SpriteItem>> schedule(MaterialInquiry inq) {
-        return Scheduler.complete(() -> {
+        return Aether.getScheduler().complete(() -> {
             Material m = inq.getMaterial();
             List<SpriteItem> items = this.getRawStream(str -> str.collect(Collectors.toList()));
             items.removeIf(i -> !m.equals(Materials.getMaterial(i)));
@@ -1,8 +1,13 @@
 package com.codelanx.aether.common.event;
 
+import com.codelanx.aether.common.bot.Aether;
+import com.codelanx.aether.common.bot.AsyncBot;
+
 public abstract class Event {
 
     private String name;
+    //handler lists are static, so this tells apart the events of several bots sharing a client
+    private final AsyncBot bot = Aether.getBot();
 
     public abstract HandlerList getStaticHandlerList();
 
@@ -13,4 +18,9 @@ public abstract class Event {
         return name;
     }
 
+    //the bot this event was created for, null if it wasn't created on one of a bot's threads
+    public AsyncBot getBot() {
+        return this.bot;
+    }
+
 }
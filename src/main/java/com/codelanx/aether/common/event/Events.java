@@ -1,7 +1,21 @@
 package com.codelanx.aether.common.event;
 
+import com.codelanx.commons.logging.Logging;
+import com.codelanx.commons.util.Readable;
+
 public class Events {
 
+    public static void fire(Event event) {
+        for (RegisteredListener registration : event.getStaticHandlerList().getRegisteredListeners()) {
+            try {
+                registration.callEvent(event);
+            } catch (Throwable ex) {
+                Logging.severe("Could not pass event " + event.getEventName() + " to " + registration.getListener().getClass().getSimpleName());
+                Logging.severe(Readable.stackTraceToString(ex));
+            }
+        }
+    }
+
     ///reallly old code I gotta port
 /*
     public static void register(Listener listener) {
@@ -97,18 +111,5 @@ public class Events {
 
     public static void unregister(Listener l) {
 
-    }
-
-    public static void fire(Event event) {
-        HandlerList handlers = event.getStaticHandlerList();
-        RegisteredListener[] listeners = handlers.getRegisteredListeners();
-
-        for (RegisteredListener registration : listeners) {
-            try {
-                registration.callEvent(event);
-            } catch (Throwable ex) {
-                Logging.severe("Could not pass event " + event.getEventName() + " to " + registration.getListener().getClass().getSimpleName() + "\n" + Readable.stackTraceToString(ex));
-            }
-        }
     }*/
 }
@@ -11,4 +11,8 @@ public class PauseEvent extends Event {
     public HandlerList getStaticHandlerList() {
         return PauseEvent.handler;
     }
+
+    public static HandlerList getHandlerList() {
+        return PauseEvent.handler;
+    }
 }
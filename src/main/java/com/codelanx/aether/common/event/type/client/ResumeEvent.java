@@ -0,0 +1,18 @@
+package com.codelanx.aether.common.event.type.client;
+
+import com.codelanx.aether.common.event.Event;
+import com.codelanx.aether.common.event.HandlerList;
+
+public class ResumeEvent extends Event {
+
+    private static final HandlerList handler = new HandlerList();
+
+    @Override
+    public HandlerList getStaticHandlerList() {
+        return ResumeEvent.handler;
+    }
+
+    public static HandlerList getHandlerList() {
+        return ResumeEvent.handler;
+    }
+}
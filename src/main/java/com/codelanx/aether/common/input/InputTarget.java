@@ -4,7 +4,7 @@ import com.codelanx.aether.common.bot.Aether;
 import com.codelanx.aether.common.bot.AetherCompletableFuture;
 import com.codelanx.commons.logging.Logging;
 import com.codelanx.commons.util.Readable;
-import com.codelanx.commons.util.Scheduler;
+import com.codelanx.aether.common.bot.AetherScheduler;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -22,13 +22,14 @@ public abstract class InputTarget {
     private final AtomicInteger attempts = new AtomicInteger();
 
     protected void doAttempt(Supplier<Boolean> task) {
-        Logging.info("Starting user input (task-" + Scheduler.getTaskCount() + ": " + this.toString() + ")");
+        Logging.info("Starting user input (task-" + Aether.getScheduler().getTaskCount() + ": " + this.toString() + ")");
         if (this.attempts.incrementAndGet() >= MAX_ATTEMPTS) {
             UserInputException t = new UserInputException("Failed to run input task");
             this.postAttempt.completeExceptionally(t); //contract chaining
             throw t;
         }
-        this.attempt = Scheduler.complete(task);
+        AetherScheduler scheduler = Aether.getScheduler();
+        this.attempt = scheduler.wakeOn(scheduler.complete(task));
         this.attempt.whenComplete((value, ex) -> {
             if (ex == null && value) {
                 this.postAttempt.complete(value); //true only, we only complete (in total) when successful
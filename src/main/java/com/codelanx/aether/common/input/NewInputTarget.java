@@ -3,7 +3,7 @@ package com.codelanx.aether.common.input;
 import com.codelanx.aether.common.bot.Aether;
 import com.codelanx.commons.logging.Logging;
 import com.codelanx.commons.util.Readable;
-import com.codelanx.commons.util.Scheduler;
+import com.codelanx.aether.common.bot.AetherScheduler;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -68,7 +68,7 @@ public abstract class NewInputTarget {
             last.completeExceptionally(t); //contract chaining
             throw t;
         }
-        Logging.info("Starting user input (task-" + Scheduler.getTaskCount() + ": " + this.toString() + ")");
+        Logging.info("Starting user input (task-" + Aether.getScheduler().getTaskCount() + ": " + this.toString() + ")");
         this.attempt = this.buildAttempt(task);
         return this.attempt;
     }
@@ -103,7 +103,8 @@ public abstract class NewInputTarget {
     }
 
     private CompletableFuture<Boolean> rawAttempt(Supplier<Boolean> task) {
-        return Scheduler.complete(task).thenApply(b -> {
+        AetherScheduler scheduler = Aether.getScheduler();
+        return scheduler.wakeOn(scheduler.complete(task)).thenApply(b -> {
             if (!b) {
                 throw new UserInputException("Failed to run input (false returned)");
             }
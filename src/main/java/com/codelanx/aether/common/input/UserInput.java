@@ -1,6 +1,9 @@
 package com.codelanx.aether.common.input;
 
 import com.codelanx.aether.common.Randomization;
+import com.codelanx.aether.common.bot.Aether;
+import com.codelanx.aether.common.event.Events;
+import com.codelanx.aether.common.event.type.client.InputQueuedEvent;
 import com.codelanx.aether.common.input.type.CombatTarget;
 import com.codelanx.aether.common.input.type.KeyboardTarget;
 import com.codelanx.aether.common.input.type.MouseTarget;
@@ -15,10 +18,8 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
-public enum UserInput {
-
-    INSTANCE,
-    ;
+//one input queue per bot, the static methods act on the queue of the current thread's bot
+public final class UserInput {
 
     private static final long MIN_CLICK_MS = 100;
     private static final long TASK_SWITCH_DELAY = 300;
@@ -28,6 +29,10 @@ public enum UserInput {
     private final AtomicLong lastInputTargetMs = new AtomicLong(); //last ms mark for input (can be in future)
     private Class<? extends InputTarget> lastInputType = null;
 
+    public static UserInput get() {
+        return Aether.getBot().getUserInput();
+    }
+
     public void registerClick(Interactable obj) {
         obj.click();
     }
@@ -59,14 +64,15 @@ public enum UserInput {
     }
 
     public InputTarget getNextTarget(int offset) {
-        return INSTANCE.lock.read(() -> this.queue.size() <= offset ? null : this.queue.get(offset));
+        return this.lock.read(() -> this.queue.size() <= offset ? null : this.queue.get(offset));
     }
 
     // -=- bot methods
 
     public static boolean attempt() {
         //Logging.info("Running user input...");
-        InputTarget target = INSTANCE.getNextTarget();
+        UserInput input = UserInput.get();
+        InputTarget target = input.getNextTarget();
         if (target == null) {
             Logging.info("Null next target");
             return false;
@@ -79,16 +85,16 @@ public enum UserInput {
                 return true;
             }
             Logging.info("Input successful");
-            INSTANCE.lastInputMs.set(System.currentTimeMillis());
-            InputTarget next = INSTANCE.getNextTarget(1);
+            input.lastInputMs.set(System.currentTimeMillis());
+            InputTarget next = input.getNextTarget(1);
             if (next != null) {
                 Logging.info("Hovering next input...");
-                INSTANCE.actOnTarget(target, true);
+                input.actOnTarget(target, true);
             }
-            INSTANCE.lastInputType = target.getClass();
-            INSTANCE.queue.remove(0);
+            input.lastInputType = target.getClass();
+            input.queue.remove(0);
         } else if (!target.isAttempting()) {
-            INSTANCE.actOnTarget(target, false);
+            input.actOnTarget(target, false);
         }
         return true;
     }
@@ -103,11 +109,13 @@ public enum UserInput {
     }
 
     public static boolean hasTasks() {
-        return !INSTANCE.lock.read(INSTANCE.queue::isEmpty);
+        UserInput input = UserInput.get();
+        return !input.lock.read(input.queue::isEmpty);
     }
 
     public static void wipe() {
-        INSTANCE.lock.write(INSTANCE.queue::clear);
+        UserInput input = UserInput.get();
+        input.lock.write(input.queue::clear);
     }
 
     // -=- input methods
@@ -138,7 +146,9 @@ public enum UserInput {
     }
 
     private static <T extends InputTarget> T addTask(T target) {
-        INSTANCE.lock.write(() -> INSTANCE.queue.add(target));
+        UserInput input = UserInput.get();
+        input.lock.write(() -> input.queue.add(target));
+        Events.fire(new InputQueuedEvent());
         return target;
     }
 
@@ -1,5 +1,6 @@
 package com.codelanx.aether.common.input;
 
+import com.codelanx.aether.common.bot.Aether;
 import com.codelanx.aether.common.input.type.CombatTarget;
 import com.codelanx.aether.common.input.type.KeyboardTarget;
 import com.codelanx.aether.common.input.type.MouseTarget;
@@ -11,10 +12,7 @@ import java.util.LinkedList;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
-public enum UserInput3 {
-
-    INSTANCE,
-    ;
+public final class UserInput3 {
 
     private static final long MIN_CLICK_MS = 100;
     private static final long TASK_SWITCH_DELAY = 300;
@@ -25,9 +23,13 @@ public enum UserInput3 {
 
     //this one will be based on scheduling / queueing
 
+    public static UserInput3 get() {
+        return Aether.getBot().getUserInput3();
+    }
+
     //TODO: revisit after cleaning up InputTarget
     public static void fire() {
-        NewInputTarget tar = INSTANCE.getNextTarget();
+        NewInputTarget tar = UserInput3.get().getNextTarget();
         if (tar == null) {
             //nothing to fire
             return;
@@ -98,7 +100,8 @@ public enum UserInput3 {
     }
 
     private static <T extends InputTarget> T addTask(T target) {
-        INSTANCE.lock.write(() -> INSTANCE.queue.add((NewInputTarget) (Object) target)); //TODO: remove type mask (when finished rewrite)
+        UserInput3 input = UserInput3.get();
+        input.lock.write(() -> input.queue.add((NewInputTarget) (Object) target)); //TODO: remove type mask (when finished rewrite)
         //TODO: Schedule task
         return target;
     }